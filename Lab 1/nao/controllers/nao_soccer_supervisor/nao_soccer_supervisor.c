@@ -789,12 +789,75 @@ static void handle_move_ball_request(const char *request) {
   move_ball_3d(tx, ty, tz);
 }
 
+// binary command packets (see SupervisorCommands.java):
+// "MCmd", version, number of commands, then the commands one after the other,
+// each made of a command byte followed by its arguments, doubles are 8 bytes little endian
+#define COMMANDS_VERSION 1
+#define COMMANDS_HEADER_SIZE 6
+#define COMMAND_MOVE_ROBOT 1  // playerID, teamID (1 byte each), tx, ty, tz, alpha
+#define COMMAND_MOVE_BALL 2   // tx, ty, tz
+#define MOVE_ROBOT_SIZE 35
+#define MOVE_BALL_SIZE 25
+
+// read a little endian double, independently of the host byte order and alignment
+static double read_double(const unsigned char *bytes) {
+  unsigned long long bits = 0;
+  int i;
+  for (i = 7; i >= 0; i--)
+    bits = (bits << 8) | bytes[i];
+  double value;
+  memcpy(&value, &bits, sizeof(value));
+  return value;
+}
+
+// handles a packet of binary commands received from a robot controller
+static void handle_binary_commands(const unsigned char *data, int size) {
+  if (match_type != DEMO) {
+    fprintf(stderr, "not in DEMO mode: ignoring %d bytes of commands\n", size);
+    return;
+  }
+
+  if (size < COMMANDS_HEADER_SIZE || data[4] != COMMANDS_VERSION) {
+    fprintf(stderr, "unsupported command packet of %d bytes\n", size);
+    return;
+  }
+
+  int count = data[5];
+  int offset = COMMANDS_HEADER_SIZE;
+  int i;
+  for (i = 0; i < count; i++) {
+    if (offset >= size)
+      break;
+
+    const unsigned char *command = data + offset;
+    if (command[0] == COMMAND_MOVE_ROBOT && offset + MOVE_ROBOT_SIZE <= size) {
+      int robot_index = robot_get_index(command[1], command[2]);
+      if (robot_index != -1 && robots[robot_index])
+        move_robot_3d(robot_index, read_double(command + 3), read_double(command + 11), read_double(command + 19),
+                      read_double(command + 27));
+      else
+        fprintf(stderr, "no such robot: %d %d\n", command[1], command[2]);
+      offset += MOVE_ROBOT_SIZE;
+    } else if (command[0] == COMMAND_MOVE_BALL && offset + MOVE_BALL_SIZE <= size) {
+      move_ball_3d(read_double(command + 1), read_double(command + 9), read_double(command + 17));
+      offset += MOVE_BALL_SIZE;
+    } else
+      break;
+  }
+
+  if (i < count)
+    fprintf(stderr, "malformed command packet: only %d of %d commands executed\n", i, count);
+}
+
 static void read_incoming_messages() {
   // read while queue not empty
   while (wb_receiver_get_queue_length(receiver) > 0) {
-    // I'm only expecting ascii messages
+    // ascii requests or binary command packets
     const char *request = wb_receiver_get_data(receiver);
-    if (memcmp(request, "move robot ", 11) == 0)
+    int size = wb_receiver_get_data_size(receiver);
+    if (size >= 4 && memcmp(request, "MCmd", 4) == 0)
+      handle_binary_commands((const unsigned char *)request, size);
+    else if (memcmp(request, "move robot ", 11) == 0)
       handle_move_robot_request(request);
     else if (memcmp(request, "move ball ", 10) == 0)
       handle_move_ball_request(request);
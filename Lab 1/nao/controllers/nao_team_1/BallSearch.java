@@ -0,0 +1,225 @@
+//-----------------------------------------------------------------------------
+//  File:         BallSearch.java (to be used in a Webots java controllers)
+//  Date:         October 17, 2026
+//  Description:  Probability map of the direction of a lost ball, used to choose
+//                where to look first. The map has BINS directions around the robot
+//                in two distance bands: FAR, seen by the top camera with a
+//                horizontal head, and NEAR, seen by the bottom camera.
+//                It is centred on the last sighting, spreads with time, follows
+//                the body turns and is lowered where an image did not show the ball.
+//                Directions are relative to the body, positive towards the right
+//                (like Player.getBallDirection()), head yaws are positive to the left.
+//  Project:      Robotstadium, the online robot soccer competition
+//-----------------------------------------------------------------------------
+
+import java.util.Arrays;
+
+public class BallSearch {
+
+  public static final int BINS = 36;                           // 10 degrees each
+  public static final int FAR = 0, NEAR = 1;
+  public static final double NEAR_DISTANCE = 1.2;              // m, limit of the bottom camera band
+  private static final double BIN_WIDTH = 2.0 * Math.PI / BINS;
+  private static final double MISS_LIKELIHOOD = 0.15;          // the ball is in view but not detected
+  private static final double SPREAD_PERIOD = 0.25;            // seconds between two blur passes
+  private static final double SPREAD = 0.1;                    // fraction moved to each neighbour bin per pass
+  private static final double BAND_MIXING = 0.03;              // fraction moved to the other band per pass
+  private static final double FLOOR = 0.002;                   // minimum probability of any bin
+  private static final double SIGHTING_STD = 0.15;             // rad, spread around the last sighting
+
+  // time cost of a look: head turn, camera switch and image
+  private static final double HEAD_SPEED = 4.0;                // rad/s
+  private static final double CAMERA_SWITCH_TIME = 0.16;       // s, the other camera must take an image
+  private static final double IMAGE_TIME = 0.2;                // s, one image taken and analysed
+
+  // bins in a fixed frame: the direction of bin i is i * BIN_WIDTH + heading
+  private final double[][] p = new double[2][BINS];
+  private double heading;       // sum of the body turns to the left, they move the directions to the right
+  private double spreadTime;
+  private double lastX, lastY;  // last sighting in the body frame (forwards, left), m
+  private double lastSeenAge = Double.POSITIVE_INFINITY;
+
+  // result of planHead()
+  private double targetYaw;
+  private boolean targetTop;
+  private double targetMass;
+
+  public BallSearch() {
+    reset();
+  }
+
+  // nothing known: uniform map
+  public void reset() {
+    for (double[] band : p)
+      Arrays.fill(band, 1.0 / (2 * BINS));
+    lastSeenAge = Double.POSITIVE_INFINITY;
+  }
+
+  // the ball was seen: direction (rad, positive towards the right) and distance (m)
+  public void seen(double direction, double distance) {
+    int band = distance < NEAR_DISTANCE ? NEAR : FAR;
+    double sum = 0.0;
+    for (int b = 0; b < 2; b++) {
+      for (int i = 0; i < BINS; i++) {
+        double d = normalizeAngle(binDirection(i) - direction) / SIGHTING_STD;
+        p[b][i] = FLOOR + (b == band ? Math.exp(-0.5 * d * d) : 0.0);
+        sum += p[b][i];
+      }
+    }
+    scale(1.0 / sum);
+    spreadTime = 0.0;
+    lastX = distance * Math.cos(direction);
+    lastY = -distance * Math.sin(direction);
+    lastSeenAge = 0.0;
+  }
+
+  // an image taken with the given head yaw and camera did not show the ball
+  public void missed(double headYaw, boolean top, double fov) {
+    int band = top ? FAR : NEAR;
+    double axis = -headYaw;
+    double sum = 0.0;
+    for (int b = 0; b < 2; b++) {
+      for (int i = 0; i < BINS; i++) {
+        if (b == band && Math.abs(normalizeAngle(binDirection(i) - axis)) < 0.5 * fov)
+          p[b][i] = Math.max(FLOOR, p[b][i] * MISS_LIKELIHOOD);
+        sum += p[b][i];
+      }
+    }
+    scale(1.0 / sum);
+  }
+
+  // the ball may have rolled: the map spreads with time
+  public void predict(double dt) {
+    lastSeenAge += dt;
+    spreadTime += dt;
+    while (spreadTime >= SPREAD_PERIOD) {
+      spreadTime -= SPREAD_PERIOD;
+      for (double[] band : p) {
+        double first = band[0], previous = band[BINS - 1];
+        for (int i = 0; i < BINS; i++) {
+          double next = i + 1 < BINS ? band[i + 1] : first;
+          double current = band[i];
+          band[i] = (1.0 - 2.0 * SPREAD) * current + SPREAD * (previous + next);
+          previous = current;
+        }
+      }
+      for (int i = 0; i < BINS; i++) {
+        double far = p[FAR][i], near = p[NEAR][i];
+        p[FAR][i] = (1.0 - BAND_MIXING) * far + BAND_MIXING * near;
+        p[NEAR][i] = (1.0 - BAND_MIXING) * near + BAND_MIXING * far;
+      }
+    }
+  }
+
+  // the robot moved by (dx, dy) meters (forwards, left) and turned by dtheta radians (counter-clockwise)
+  public void applyOdometry(double dx, double dy, double dtheta) {
+    heading = normalizeAngle(heading + dtheta);
+    double c = Math.cos(-dtheta), s = Math.sin(-dtheta);
+    double x = lastX - dx, y = lastY - dy;
+    lastX = c * x - s * y;
+    lastY = s * x + c * y;
+  }
+
+  // choose the next look: the head yaw and camera that cover the most probability
+  // per second from the current head yaw, see getTargetYaw() and isTargetTop()
+  public void planHead(double headYaw, double minYaw, double maxYaw, boolean top, double fov) {
+    double best = -1.0;
+    int steps = (int)Math.ceil((maxYaw - minYaw) / BIN_WIDTH);
+    for (int k = 0; k <= steps; k++) {
+      double yaw = minYaw + (maxYaw - minYaw) * k / steps;
+      for (int band = 0; band < 2; band++) {
+        double mass = coveredMass(yaw, band, fov);
+        double time = Math.abs(yaw - headYaw) / HEAD_SPEED + IMAGE_TIME + ((band == FAR) != top ? CAMERA_SWITCH_TIME : 0.0);
+        if (mass / time > best) {
+          best = mass / time;
+          targetYaw = yaw;
+          targetTop = band == FAR;
+          targetMass = mass;
+        }
+      }
+    }
+  }
+
+  public double getTargetYaw() {
+    return targetYaw;
+  }
+
+  public boolean isTargetTop() {
+    return targetTop;
+  }
+
+  // probability covered by the planned look
+  public double getTargetMass() {
+    return targetMass;
+  }
+
+  // probability that the ball is within reach of the head, both cameras
+  public double getReachableMass(double minYaw, double maxYaw, double fov) {
+    double mass = 0.0;
+    for (int i = 0; i < BINS; i++) {
+      double direction = binDirection(i);
+      if (direction >= -maxYaw - 0.5 * fov && direction <= -minYaw + 0.5 * fov)
+        mass += p[FAR][i] + p[NEAR][i];
+    }
+    return mass;
+  }
+
+  // direction of the 60 degrees sector with the highest probability, to turn the body
+  public double getTurnDirection() {
+    final int SECTOR = 6;
+    double best = -1.0;
+    int bestBin = 0;
+    for (int i = 0; i < BINS; i++) {
+      double mass = 0.0;
+      for (int j = -SECTOR / 2; j < SECTOR / 2; j++) {
+        int k = (i + j + BINS) % BINS;
+        mass += p[FAR][k] + p[NEAR][k];
+      }
+      if (mass > best) {
+        best = mass;
+        bestBin = i;
+      }
+    }
+    return normalizeAngle(binDirection(bestBin) - 0.5 * BIN_WIDTH);
+  }
+
+  // true when the map has no clear peak any more, e.g. after a long search
+  public boolean isUninformed() {
+    double max = 0.0;
+    for (int i = 0; i < BINS; i++)
+      max = Math.max(max, p[FAR][i] + p[NEAR][i]);
+    return max < 3.0 / BINS;
+  }
+
+  // the ball was last seen at the feet of the robot, below the bottom camera, a moment ago
+  public boolean isLostNearby(double distance, double maxAge) {
+    return lastSeenAge < maxAge && Math.hypot(lastX, lastY) < distance;
+  }
+
+  // probability of a direction bin, for debugging
+  public double getProbability(int band, int bin) {
+    return p[band][bin];
+  }
+
+  public double binDirection(int bin) {
+    return normalizeAngle(bin * BIN_WIDTH + heading);
+  }
+
+  private double coveredMass(double headYaw, int band, double fov) {
+    double axis = -headYaw, mass = 0.0;
+    for (int i = 0; i < BINS; i++)
+      if (Math.abs(normalizeAngle(binDirection(i) - axis)) < 0.5 * fov)
+        mass += p[band][i];
+    return mass;
+  }
+
+  private void scale(double factor) {
+    for (double[] band : p)
+      for (int i = 0; i < BINS; i++)
+        band[i] *= factor;
+  }
+
+  private static double normalizeAngle(double angle) {
+    return Localization.normalizeAngle(angle);
+  }
+}
@@ -0,0 +1,240 @@
+//-----------------------------------------------------------------------------
+//  File:         BallTracker.java (to be used in a Webots java controllers)
+//  Date:         October 17, 2026
+//  Description:  Kalman filter estimating the ball position and velocity in
+//                robot coordinates: x forwards, y to the left (meters)
+//                The ball is predicted between detections and moved according
+//                to the motions of the robot (odometry).
+//  Project:      Robotstadium, the online robot soccer competition
+//-----------------------------------------------------------------------------
+
+public class BallTracker {
+
+  // model parameters
+  private static final double BALL_FRICTION_TIME = 2.0;      // seconds for the ball speed to drop to 1/e
+  private static final double ACCELERATION_NOISE = 0.5;      // m/s^2, unmodelled ball accelerations
+  private static final double ANGLE_NOISE = 0.04;            // rad, detection direction error
+  private static final double DISTANCE_NOISE = 0.05;         // m, plus DISTANCE_NOISE_RATIO * distance
+  private static final double DISTANCE_NOISE_RATIO = 0.15;
+  private static final double ODOMETRY_NOISE_RATIO = 0.2;    // relative error of the motion displacements
+  private static final double GATE = 16.0;                   // squared Mahalanobis distance to reject a detection
+  private static final double INITIAL_SPEED_STD = 0.5;       // m/s
+  private static final double MAX_DISTANCE = 10.0;           // m, farther detections are ignored
+
+  // the estimate is dropped when the ball was not seen for this long
+  // or when its position uncertainty grows above this value
+  private static final double MAX_AGE = 4.0;                 // seconds
+  private static final double MAX_POSITION_STD = 1.0;        // m
+
+  // state [x, y, vx, vy] and its covariance (row major 4x4)
+  private final double[] s = new double[4];
+  private final double[] P = new double[16];
+  private final double[] A = new double[16];  // transition matrix
+  private final double[] T = new double[16];  // temporary matrix
+  private final double[] K = new double[8];   // Kalman gain
+  private boolean valid;
+  private double age;       // seconds since the last accepted detection
+  private int rejected;     // consecutive rejected detections
+
+  public void reset() {
+    valid = false;
+  }
+
+  // advance the estimate by dt seconds
+  public void predict(double dt) {
+    if (! valid)
+      return;
+
+    double damping = Math.exp(-dt / BALL_FRICTION_TIME);
+    s[0] += s[2] * dt;
+    s[1] += s[3] * dt;
+    s[2] *= damping;
+    s[3] *= damping;
+
+    // P = F P F' + Q with F = [I dt*I; 0 damping*I]
+    setMatrix(1, 0, dt, 0,
+              0, 1, 0, dt,
+              0, 0, damping, 0,
+              0, 0, 0, damping);
+    transform();
+
+    // white acceleration noise
+    double q = ACCELERATION_NOISE * ACCELERATION_NOISE;
+    double dt2 = dt * dt;
+    for (int i = 0; i < 2; i++) {
+      P[i * 4 + i] += q * dt2 * dt2 / 4;
+      P[i * 4 + i + 2] += q * dt2 * dt / 2;
+      P[(i + 2) * 4 + i] += q * dt2 * dt / 2;
+      P[(i + 2) * 4 + i + 2] += q * dt2;
+    }
+
+    age += dt;
+    if (age > MAX_AGE || Math.sqrt(P[0] + P[5]) > MAX_POSITION_STD)
+      valid = false;
+  }
+
+  // the robot moved by (dx, dy) in its previous frame and turned by dtheta (counter-clockwise)
+  public void applyOdometry(double dx, double dy, double dtheta) {
+    if (! valid)
+      return;
+
+    double c = Math.cos(-dtheta), sn = Math.sin(-dtheta);
+    double x = s[0] - dx, y = s[1] - dy;
+    s[0] = c * x - sn * y;
+    s[1] = sn * x + c * y;
+    double vx = s[2], vy = s[3];
+    s[2] = c * vx - sn * vy;
+    s[3] = sn * vx + c * vy;
+
+    setMatrix(c, -sn, 0, 0,
+              sn, c, 0, 0,
+              0, 0, c, -sn,
+              0, 0, sn, c);
+    transform();
+
+    // odometry is not exact: the error grows with the displacement
+    double distance = Math.hypot(s[0], s[1]);
+    double translationError = ODOMETRY_NOISE_RATIO * Math.hypot(dx, dy);
+    double rotationError = ODOMETRY_NOISE_RATIO * Math.abs(dtheta) * distance;
+    double e = translationError * translationError + rotationError * rotationError;
+    P[0] += e;
+    P[5] += e;
+  }
+
+  // fuse a ball detection: direction (rad, positive towards the right) and floor distance (m)
+  // return false if the detection was rejected as inconsistent with the estimate
+  public boolean update(double direction, double distance) {
+    if (! (distance > 0.0 && distance < MAX_DISTANCE))
+      return false;  // ball above the horizon or too far to be measured
+
+    double mx = distance * Math.cos(direction);
+    double my = -distance * Math.sin(direction);
+
+    // measurement noise: radial and tangential errors rotated to x, y
+    double radial = DISTANCE_NOISE + DISTANCE_NOISE_RATIO * distance;
+    double tangential = ANGLE_NOISE * distance;
+    double c = Math.cos(direction), sn = -Math.sin(direction);
+    double r2 = radial * radial, t2 = tangential * tangential;
+    double Rxx = c * c * r2 + sn * sn * t2;
+    double Ryy = sn * sn * r2 + c * c * t2;
+    double Rxy = c * sn * (r2 - t2);
+
+    if (! valid) {
+      initialize(mx, my, Rxx, Ryy, Rxy);
+      return true;
+    }
+
+    // innovation and its covariance S = H P H' + R with H = [I 0]
+    double ix = mx - s[0], iy = my - s[1];
+    double Sxx = P[0] + Rxx, Syy = P[5] + Ryy, Sxy = P[1] + Rxy;
+    double det = Sxx * Syy - Sxy * Sxy;
+    if (det <= 0.0)
+      return false;
+    double Ixx = Syy / det, Iyy = Sxx / det, Ixy = -Sxy / det;  // S^-1
+
+    double mahalanobis = ix * (Ixx * ix + Ixy * iy) + iy * (Ixy * ix + Iyy * iy);
+    if (mahalanobis > GATE) {
+      // several inconsistent detections in a row: the ball was probably moved
+      if (++rejected >= 3)
+        initialize(mx, my, Rxx, Ryy, Rxy);
+      return false;
+    }
+    rejected = 0;
+
+    // gain K = P H' S^-1 (4x2)
+    for (int i = 0; i < 4; i++) {
+      double p0 = P[i * 4], p1 = P[i * 4 + 1];
+      K[i * 2] = p0 * Ixx + p1 * Ixy;
+      K[i * 2 + 1] = p0 * Ixy + p1 * Iyy;
+    }
+    for (int i = 0; i < 4; i++)
+      s[i] += K[i * 2] * ix + K[i * 2 + 1] * iy;
+
+    // P = (I - K H) P
+    for (int i = 0; i < 4; i++)
+      for (int j = 0; j < 4; j++)
+        T[i * 4 + j] = P[i * 4 + j] - K[i * 2] * P[j] - K[i * 2 + 1] * P[4 + j];
+    System.arraycopy(T, 0, P, 0, 16);
+
+    age = 0.0;
+    return true;
+  }
+
+  private void initialize(double x, double y, double Rxx, double Ryy, double Rxy) {
+    s[0] = x;
+    s[1] = y;
+    s[2] = 0.0;
+    s[3] = 0.0;
+    for (int i = 0; i < 16; i++)
+      P[i] = 0.0;
+    P[0] = Rxx;
+    P[5] = Ryy;
+    P[1] = P[4] = Rxy;
+    P[10] = P[15] = INITIAL_SPEED_STD * INITIAL_SPEED_STD;
+    valid = true;
+    age = 0.0;
+    rejected = 0;
+  }
+
+  private void setMatrix(double... values) {
+    System.arraycopy(values, 0, A, 0, 16);
+  }
+
+  // P = A P A'
+  private void transform() {
+    for (int i = 0; i < 4; i++)
+      for (int j = 0; j < 4; j++) {
+        double sum = 0.0;
+        for (int k = 0; k < 4; k++)
+          sum += A[i * 4 + k] * P[k * 4 + j];
+        T[i * 4 + j] = sum;
+      }
+    for (int i = 0; i < 4; i++)
+      for (int j = 0; j < 4; j++) {
+        double sum = 0.0;
+        for (int k = 0; k < 4; k++)
+          sum += T[i * 4 + k] * A[j * 4 + k];
+        P[i * 4 + j] = sum;
+      }
+  }
+
+  public boolean isValid() {
+    return valid;
+  }
+
+  // seconds since the ball was last detected
+  public double getAge() {
+    return age;
+  }
+
+  // same conventions as Player.getBallDirection() and Player.getBallDistance()
+  // NaoCam.UNKNOWN if there is no valid estimate
+  public double getDirection() {
+    return valid ? -Math.atan2(s[1], s[0]) : NaoCam.UNKNOWN;
+  }
+
+  public double getDistance() {
+    return valid ? Math.hypot(s[0], s[1]) : NaoCam.UNKNOWN;
+  }
+
+  public double getX() {
+    return s[0];
+  }
+
+  public double getY() {
+    return s[1];
+  }
+
+  public double getVelocityX() {
+    return s[2];
+  }
+
+  public double getVelocityY() {
+    return s[3];
+  }
+
+  // standard deviation of the position estimate (m)
+  public double getPositionStd() {
+    return Math.sqrt(P[0] + P[5]);
+  }
+}
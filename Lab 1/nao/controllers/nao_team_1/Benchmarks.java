@@ -0,0 +1,235 @@
+//-----------------------------------------------------------------------------
+//  File:         Benchmarks.java (to be used in a Webots java controllers)
+//  Date:         October 17, 2026
+//  Description:  Micro benchmarks of the controller hot paths, runs without Webots:
+//                java -cp .:$WEBOTS_HOME/lib/controller/java/Controller.jar Benchmarks [filter]
+//                Reports throughput, latency percentiles and allocated bytes per operation.
+//  Project:      Robotstadium, the online robot soccer competition
+//-----------------------------------------------------------------------------
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+public class Benchmarks {
+
+  private static final int WARMUP_MILLIS = 1000;
+  private static final int MEASURE_OPS = 20000;
+  private static final int MAX_SAMPLES = 20000;
+
+  // one benchmarked operation
+  private interface Operation {
+    void run();
+  }
+
+  public static void main(String[] args) {
+    String filter = args.length > 0 ? args[0] : "";
+    System.out.printf("%-52s %12s %10s %10s %10s %10s %12s%n",
+                      "benchmark", "ops/s", "p50 us", "p90 us", "p99 us", "max us", "bytes/op");
+
+    // image analysis at several resolutions and ball/goal pixel densities
+    final int[][] RESOLUTIONS = { { 80, 60 }, { 160, 120 }, { 320, 240 } };
+    final double[] BALL_RADII = { 0.02, 0.08 };  // fraction of the image width
+    for (int[] size : RESOLUTIONS) {
+      for (double ballRadius : BALL_RADII) {
+        for (int tracking = 0; tracking <= 1; tracking++) {
+          final int width = size[0], height = size[1];
+          final int[] image = syntheticFrame(width, height, ballRadius, 42);
+          final ImageAnalyzer analyzer = new ImageAnalyzer(new ColorTable());
+          analyzer.setTracking(tracking == 1);
+          final Perception perception = new Perception();
+          String name = "ImageAnalyzer.analyze " + width + "x" + height + " ball " + ballRadius + (tracking == 1 ? " tracking" : "");
+          run(name, filter, () -> analyzer.analyze(image, width, height, 1.0, true, 0.0, 0.0, 0.0, perception));
+        }
+      }
+    }
+
+    // color classification alone
+    final ColorTable table = new ColorTable();
+    final int[] noise = syntheticFrame(160, 120, 0.05, 7);
+    run("ColorTable.classify 160x120", filter, () -> {
+      int sum = 0;
+      for (int pixel : noise)
+        sum += table.classify(pixel);
+      blackhole = sum;
+    });
+
+    // game controller packet decoding, on a synthetic packet (see gameControlPacket())
+    final byte[] packet = gameControlPacket();
+    final RoboCupGameControlData gameControlData = new RoboCupGameControlData();
+    run("RoboCupGameControlData.update repeated", filter, () -> gameControlData.update(packet));
+    final byte[] other = gameControlPacket();
+    other[16]++;  // secsRemaining
+    final RoboCupGameControlData changing = new RoboCupGameControlData();
+    run("RoboCupGameControlData.update changed", filter, () -> {
+      changing.update(packet);
+      changing.update(other);
+    });
+
+    // one motion and one goal update of the particle filter, sequential and fork-join
+    for (int particles : new int[] { Localization.DEFAULT_PARTICLES, 4 * Localization.PARALLEL_THRESHOLD }) {
+      final Localization localization = new Localization(particles, 42);
+      run("Localization step " + particles + " particles", filter, () -> {
+        localization.applyOdometry(0.02, 0.0, 0.01);
+        localization.updateOpponentGoal(0.3, 3.0);
+      });
+    }
+
+    // cost of timing one phase of the control loop
+    final Metrics metrics = new Metrics();
+    run("Metrics start/stop", filter, () -> metrics.stop(Metrics.STEP, Metrics.start()));
+
+    // one telemetry event, drained to a temporary file
+    try {
+      File file = File.createTempFile("telemetry", ".tlm");
+      file.deleteOnExit();
+      final Telemetry telemetry = new Telemetry(file);
+      run("Telemetry.log", filter, () -> telemetry.log(Telemetry.BALL_ESTIMATE, 1.0, 0.5, 0.1, -0.2));
+      telemetry.close();  // reports the events dropped when the drainer could not keep up
+    }
+    catch (IOException e) {
+      System.out.println("Telemetry.log: " + e.getMessage());
+    }
+
+    // approach plans to balls in front, on the side and behind, goal ahead
+    final MotionPlanner planner = new MotionPlanner();
+    final double[][] BALLS = { { 1.0, 0.5 }, { 0.5, -1.0 }, { -0.5, 0.2 } };
+    for (final double[] ball : BALLS)
+      run("MotionPlanner.plan ball " + ball[0] + " " + ball[1], filter, () -> planner.plan(ball[0], ball[1], 0.0));
+
+    // one FieldPlayer decision on a headless field, the ball seen from the same pose
+    // (balls within reach of the head: in front, on the side and far)
+    final double[][] SEEN_BALLS = { { 1.0, 0.5 }, { 0.5, -1.0 }, { 2.5, 0.0 } };
+    for (final double[] ball : SEEN_BALLS) {
+      final FieldPlayer player = seeBall(ball[0], ball[1]);
+      if (player == null)
+        System.out.println("FieldPlayer.decide ball " + ball[0] + " " + ball[1] + ": ball not seen");
+      else
+        run("FieldPlayer.decide ball " + ball[0] + " " + ball[1], filter, () -> blackhole = player.decide() == null ? 0 : 1);
+    }
+  }
+
+  // a field player at the center of a headless field, facing the opponent goal, that
+  // found a still ball at (x, y) in its frame with a head scan, null if it did not
+  private static FieldPlayer seeBall(double x, double y) {
+    final int STEPS = 25;  // tracking steps after the sighting
+    HeadlessPlatform platform = new HeadlessPlatform(1);
+    platform.setRobotPose(0.0, 0.0, 0.0);
+    platform.setBall(x, y, 0.0, 0.0);
+    FieldPlayer player = new FieldPlayer(platform, 1, 1, new Parameters().setBatch(true));
+    player.headScan();
+    for (int i = 0; i < STEPS; i++)
+      player.runStep();
+    return player.isBallTracked() ? player : null;
+  }
+
+  // prevents the JIT from removing unused results
+  static volatile int blackhole;
+
+  private static void run(String name, String filter, Operation operation) {
+    if (! name.contains(filter))
+      return;
+
+    long end = System.currentTimeMillis() + WARMUP_MILLIS;
+    while (System.currentTimeMillis() < end)
+      operation.run();
+
+    long[] samples = new long[Math.min(MEASURE_OPS, MAX_SAMPLES)];
+    long allocatedBefore = allocatedBytes();
+    long start = System.nanoTime();
+    for (int i = 0; i < samples.length; i++) {
+      long t0 = System.nanoTime();
+      operation.run();
+      samples[i] = System.nanoTime() - t0;
+    }
+    long elapsed = System.nanoTime() - start;
+    long allocated = allocatedBytes() - allocatedBefore;
+
+    Arrays.sort(samples);
+    System.out.printf("%-52s %12.0f %10.2f %10.2f %10.2f %10.2f %12s%n",
+                      name,
+                      samples.length * 1e9 / elapsed,
+                      percentile(samples, 0.50) / 1000.0,
+                      percentile(samples, 0.90) / 1000.0,
+                      percentile(samples, 0.99) / 1000.0,
+                      samples[samples.length - 1] / 1000.0,
+                      allocated < 0 ? "n/a" : String.format("%.1f", (double)allocated / samples.length));
+  }
+
+  private static long percentile(long[] sorted, double p) {
+    return sorted[Math.min(sorted.length - 1, (int)(p * sorted.length))];
+  }
+
+  // bytes allocated by the current thread, -1 if the JVM cannot tell
+  private static long allocatedBytes() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean)
+      return ((com.sun.management.ThreadMXBean)bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    return -1;
+  }
+
+  // green field with a horizon line, noise, a white line, a yellow goal and an orange ball
+  static int[] syntheticFrame(int width, int height, double ballRadius, long seed) {
+    Random random = new Random(seed);
+    int[] image = new int[width * height];
+    int horizon = height / 4;
+    double radius = ballRadius * width;
+    double ballX = width * 0.6, ballY = height * 0.7;
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int pixel;
+        if (y < horizon)
+          pixel = (x > width / 5 && x < width / 2 && y > horizon / 3) ? rgb(140, 140, 15) : rgb(120, 120, 130);
+        else if (Math.abs(y - height / 2) < 2)
+          pixel = rgb(230, 230, 230);
+        else if ((x - ballX) * (x - ballX) + (y - ballY) * (y - ballY) < radius * radius)
+          pixel = rgb(240, 140, 50);
+        else
+          pixel = rgb(40, 140, 40);
+        // sensor noise
+        int n = random.nextInt(21) - 10;
+        image[y * width + x] = rgb(((pixel >> 16) & 0xff) + n, ((pixel >> 8) & 0xff) + n, (pixel & 0xff) + n);
+      }
+    }
+    return image;
+  }
+
+  private static int rgb(int r, int g, int b) {
+    r = Math.max(0, Math.min(255, r));
+    g = Math.max(0, Math.min(255, g));
+    b = Math.max(0, Math.min(255, b));
+    return 0xff000000 | (r << 16) | (g << 8) | b;
+  }
+
+  // a synthetic packet with the layout decoded by RoboCupGameControlData.update(),
+  // not one captured from the supervisor
+  static byte[] gameControlPacket() {
+    ByteBuffer buffer = ByteBuffer.allocate(68).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.put(new byte[] { 'R', 'G', 'm', 'e' });
+    buffer.putInt(6);                 // version
+    buffer.put((byte)4);              // playersPerTeam
+    buffer.put(RoboCupGameControlData.STATE_PLAYING);
+    buffer.put((byte)1);              // firstHalf
+    buffer.put(RoboCupGameControlData.TEAM_BLUE);  // kickOffTeam
+    buffer.put(RoboCupGameControlData.STATE2_NORMAL);
+    buffer.put((byte)0);              // dropInTeam
+    buffer.putShort((short)0);        // dropInTime
+    buffer.putInt(512);               // secsRemaining
+    for (int team = 0; team < 2; team++) {
+      buffer.put((byte)(team + 1));   // teamNumber
+      buffer.put((byte)team);         // teamColour
+      buffer.putShort((short)team);   // score
+      for (int player = 0; player < TeamInfo.MAX_NUM_PLAYERS; player++) {
+        buffer.putShort(RobotInfo.PENALTY_NONE);
+        buffer.putShort((short)0);
+      }
+    }
+    buffer.putFloat(1.5f);            // ballPosX
+    buffer.putFloat(-0.5f);           // ballPosZ
+    return buffer.array();
+  }
+}
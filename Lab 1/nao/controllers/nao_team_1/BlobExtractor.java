@@ -0,0 +1,219 @@
+//-----------------------------------------------------------------------------
+//  File:         BlobExtractor.java (to be used in a Webots java controllers)
+//  Date:         October 17, 2026
+//  Description:  Run-length encoded connected component labelling for NaoCam
+//                Pixels are classified with a ColorTable and grouped into runs,
+//                runs of the same class that touch the runs of the previous row
+//                are merged with a union-find. All the storage is preallocated.
+//                A blob is identified by its root run, see getBiggestBlob() and
+//                getRankedBlob().
+//  Project:      Robotstadium, the online robot soccer competition
+//-----------------------------------------------------------------------------
+
+public class BlobExtractor {
+
+  // maximum number of ranked blobs and minimum blob area (pixels)
+  public static final int MAX_BLOBS = 32;
+  public static final int MIN_AREA = 2;
+
+  // runs: one horizontal segment of pixels of the same class
+  private int capacity;
+  private int runCount;
+  private int[] runY, runX0, runX1, runClass, parent;
+
+  // blob statistics, accumulated on the root run of each component
+  private int[] area, minX, maxX, minY, maxY;
+  private long[] sumX2, sumY;  // sumX2: twice the sum of x coordinates
+
+  // ranked blobs: root runs of all the classes sorted by decreasing area
+  private final int[] ranked = new int[MAX_BLOBS];
+  private int blobCount;
+
+  // root run of the biggest blob of each color class, -1 if none
+  private final int[] biggest = new int[NaoCam.NUM_CLASSES];
+
+  public BlobExtractor() {
+    ensureCapacity(1);
+  }
+
+  // preallocate storage for images of up to maxPixels pixels
+  // (there can't be more runs than pixels)
+  public void ensureCapacity(int maxPixels) {
+    if (maxPixels <= capacity)
+      return;
+    capacity = maxPixels;
+    runY = new int[capacity];
+    runX0 = new int[capacity];
+    runX1 = new int[capacity];
+    runClass = new int[capacity];
+    parent = new int[capacity];
+    area = new int[capacity];
+    minX = new int[capacity];
+    maxX = new int[capacity];
+    minY = new int[capacity];
+    maxY = new int[capacity];
+    sumX2 = new long[capacity];
+    sumY = new long[capacity];
+  }
+
+  // label the [x0, x1] x [y0, y1] window (inclusive) of an image
+  // return the number of ranked blobs
+  public int extract(int[] image, int width, ColorTable table, int x0, int y0, int x1, int y1) {
+    ensureCapacity((x1 - x0 + 1) * (y1 - y0 + 1));
+    runCount = 0;
+    int prevStart = 0, prevEnd = 0;  // runs of the previous row
+
+    for (int y = y0; y <= y1; y++) {
+      int rowStart = runCount;
+      int i = y * width + x0;
+      int x = x0;
+      int j = prevStart;  // first run of the previous row that may touch the current run
+
+      while (x <= x1) {
+        int c = table.classify(image[i]);
+        int start = x;
+        do {
+          x++;
+          i++;
+        }
+        while (x <= x1 && table.classify(image[i]) == c);
+
+        if (c == NaoCam.NO_CLASS)
+          continue;
+
+        int r = runCount++;
+        runY[r] = y;
+        runX0[r] = start;
+        runX1[r] = x - 1;
+        runClass[r] = c;
+        parent[r] = r;
+
+        // merge with the overlapping runs of the same class in the previous row
+        while (j < prevEnd && runX1[j] < start)
+          j++;
+        for (int k = j; k < prevEnd && runX0[k] <= x - 1; k++)
+          if (runClass[k] == c)
+            union(k, r);
+      }
+
+      prevStart = rowStart;
+      prevEnd = runCount;
+    }
+
+    // accumulate statistics on the roots
+    for (int r = 0; r < runCount; r++) {
+      area[r] = 0;
+      sumX2[r] = 0;
+      sumY[r] = 0;
+      minX[r] = Integer.MAX_VALUE;
+      maxX[r] = -1;
+      minY[r] = Integer.MAX_VALUE;
+      maxY[r] = -1;
+    }
+    for (int r = 0; r < runCount; r++) {
+      int root = find(r);
+      int length = runX1[r] - runX0[r] + 1;
+      area[root] += length;
+      sumX2[root] += (long)(runX0[r] + runX1[r]) * length;
+      sumY[root] += (long)runY[r] * length;
+      if (runX0[r] < minX[root]) minX[root] = runX0[r];
+      if (runX1[r] > maxX[root]) maxX[root] = runX1[r];
+      if (runY[r] < minY[root]) minY[root] = runY[r];
+      if (runY[r] > maxY[root]) maxY[root] = runY[r];
+    }
+
+    // the biggest blob of each class, and the biggest blobs of all classes
+    for (int c = 0; c < NaoCam.NUM_CLASSES; c++)
+      biggest[c] = -1;
+    blobCount = 0;
+    for (int r = 0; r < runCount; r++) {
+      if (parent[r] != r || area[r] < MIN_AREA)
+        continue;
+      int c = runClass[r];
+      if (biggest[c] < 0 || area[r] > area[biggest[c]])
+        biggest[c] = r;
+      if (blobCount == MAX_BLOBS && area[r] <= area[ranked[MAX_BLOBS - 1]])
+        continue;
+      int k = blobCount < MAX_BLOBS ? blobCount++ : MAX_BLOBS - 1;
+      while (k > 0 && area[ranked[k - 1]] < area[r]) {
+        ranked[k] = ranked[k - 1];
+        k--;
+      }
+      ranked[k] = r;
+    }
+
+    return blobCount;
+  }
+
+  // union-find with path halving, the smaller index becomes the root
+  private int find(int r) {
+    while (parent[r] != r) {
+      parent[r] = parent[parent[r]];
+      r = parent[r];
+    }
+    return r;
+  }
+
+  private void union(int a, int b) {
+    a = find(a);
+    b = find(b);
+    if (a < b)
+      parent[b] = a;
+    else if (b < a)
+      parent[a] = b;
+  }
+
+  // number of runs found by the last extract()
+  public int getRunCount() {
+    return runCount;
+  }
+
+  // number of ranked blobs, at most MAX_BLOBS
+  public int getBlobCount() {
+    return blobCount;
+  }
+
+  // ranked blob: rank 0 is the biggest blob of all classes
+  public int getRankedBlob(int rank) {
+    return ranked[rank];
+  }
+
+  // the biggest blob of a color class, or -1 if there is none
+  // (whether it is ranked or not)
+  public int getBiggestBlob(int colorClass) {
+    return biggest[colorClass];
+  }
+
+  public int getClass(int blob) {
+    return runClass[blob];
+  }
+
+  public int getArea(int blob) {
+    return area[blob];
+  }
+
+  public double getCentroidX(int blob) {
+    return sumX2[blob] / 2.0 / area[blob];
+  }
+
+  public double getCentroidY(int blob) {
+    return (double)sumY[blob] / area[blob];
+  }
+
+  // bounding box limits (inclusive)
+  public int getMinX(int blob) {
+    return minX[blob];
+  }
+
+  public int getMaxX(int blob) {
+    return maxX[blob];
+  }
+
+  public int getMinY(int blob) {
+    return minY[blob];
+  }
+
+  public int getMaxY(int blob) {
+    return maxY[blob];
+  }
+}
@@ -0,0 +1,110 @@
+//-----------------------------------------------------------------------------
+//  File:         ColorTable.java (to be used in a Webots java controllers)
+//  Date:         October 17, 2026
+//  Description:  Precomputed rgb to color class lookup table used by NaoCam
+//                The table is built from a calibration file so that the colors
+//                can be adjusted to the lighting of a stadium without recompiling
+//  Project:      Robotstadium, the online robot soccer competition
+//-----------------------------------------------------------------------------
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+
+public class ColorTable {
+
+  // each rgb component is quantized to 5 bits: 32 x 32 x 32 entries
+  private static final int BITS = 5;
+  private static final int SIZE = 1 << (3 * BITS);
+
+  // names used in the calibration file, in NaoCam color class order
+  private static final String[] CLASS_NAMES = { "ball", "sky_blue_goal", "yellow_goal", "field", "line" };
+
+  // reference rgb components and matching threshold used when no calibration file is found
+  private static final int[][] DEFAULT_COLORS = {
+    { 240, 140,  50, 60 },  // orange ball
+    {  30, 200, 200, 60 },  // sky blue goal
+    { 140, 140,  15, 60 },  // yellow goal
+    {  40, 140,  40, 60 },  // green field
+    { 230, 230, 230, 60 }   // white lines
+  };
+
+  private final byte[] table = new byte[SIZE];
+
+  // build the table: a quantized color belongs to the first class whose reference
+  // color is within the threshold (Manhattan distance) of the center of its cell
+  public ColorTable(int[][] colors) {
+    final int HALF_CELL = 1 << (7 - BITS);
+    for (int i = 0; i < SIZE; i++) {
+      int r = ((i >> (2 * BITS)) << (8 - BITS)) + HALF_CELL;
+      int g = (((i >> BITS) & 0x1f) << (8 - BITS)) + HALF_CELL;
+      int b = ((i & 0x1f) << (8 - BITS)) + HALF_CELL;
+
+      table[i] = (byte)NaoCam.NO_CLASS;
+      for (int c = 0; c < colors.length; c++) {
+        int[] ref = colors[c];
+        if (ref != null && Math.abs(r - ref[0]) + Math.abs(g - ref[1]) + Math.abs(b - ref[2]) < ref[3]) {
+          table[i] = (byte)c;
+          break;
+        }
+      }
+    }
+  }
+
+  public ColorTable() {
+    this(DEFAULT_COLORS);
+  }
+
+  // read a calibration file with one "<class> <red> <green> <blue> <threshold>" line per class
+  // '#' starts a comment, classes that are not listed keep their default color
+  // if the file cannot be read the default colors are used
+  public static ColorTable load(String fileName) {
+    int[][] colors = new int[DEFAULT_COLORS.length][];
+    for (int c = 0; c < colors.length; c++)
+      colors[c] = DEFAULT_COLORS[c].clone();
+
+    try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
+      String line;
+      int lineNumber = 0;
+      while ((line = reader.readLine()) != null) {
+        lineNumber++;
+        int comment = line.indexOf('#');
+        if (comment >= 0)
+          line = line.substring(0, comment);
+        line = line.trim();
+        if (line.isEmpty())
+          continue;
+
+        String[] tokens = line.split("\\s+");
+        int c = classIndex(tokens[0]);
+        if (c == NaoCam.NO_CLASS || tokens.length != 5) {
+          System.out.println(fileName + ":" + lineNumber + ": ignoring invalid line: " + line);
+          continue;
+        }
+        for (int k = 0; k < 4; k++)
+          colors[c][k] = Integer.parseInt(tokens[k + 1]);
+      }
+    }
+    catch (IOException e) {
+      System.out.println("ColorTable: cannot read " + fileName + ", using default colors: " + e.getMessage());
+    }
+    catch (NumberFormatException e) {
+      System.out.println("ColorTable: invalid number in " + fileName + ", using default colors: " + e.getMessage());
+      return new ColorTable();
+    }
+
+    return new ColorTable(colors);
+  }
+
+  private static int classIndex(String name) {
+    for (int c = 0; c < CLASS_NAMES.length; c++)
+      if (CLASS_NAMES[c].equalsIgnoreCase(name))
+        return c;
+    return NaoCam.NO_CLASS;
+  }
+
+  // color class of a packed 0xRRGGBB pixel, or NaoCam.NO_CLASS
+  public int classify(int pixel) {
+    return table[((pixel >> 9) & 0x7c00) | ((pixel >> 6) & 0x03e0) | ((pixel >> 3) & 0x001f)];
+  }
+}
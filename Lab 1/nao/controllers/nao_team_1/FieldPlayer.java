@@ -7,36 +7,36 @@
 //  Changes:      November 4, 2008: Adapted to Webots6
 //-----------------------------------------------------------------------------
 
-import com.cyberbotics.webots.controller.*;
-
 public class FieldPlayer extends Player {
 
-  private Motion backwardsMotion, forwardsMotion, forwards50Motion, turnRight40Motion, turnLeft40Motion;
-  private Motion turnRight60Motion, turnLeft60Motion, turnLeft180Motion, sideStepRightMotion, sideStepLeftMotion;
+  // motions of MotionLibrary, loaded on first use
+  private static final String BACKWARDS = "Backwards", FORWARDS_50 = "Forwards50";
+  private static final String TURN_RIGHT_40 = "TurnRight40", TURN_LEFT_40 = "TurnLeft40";
+  private static final String TURN_RIGHT_60 = "TurnRight60", TURN_LEFT_60 = "TurnLeft60", TURN_LEFT_180 = "TurnLeft180";
   //* add new Motion for shooting *//
-  private Motion shootingMotion; 
+  private static final String SHOOT = "Shoot";
+
+  // a ball lost closer than this, this long ago, is probably at our feet
+  private static final double LOST_NEARBY_DISTANCE = 0.4, LOST_NEARBY_TIME = 20.0;
 
   private double goalDir = 0.0; // interpolated goal direction (with respect to front direction of robot body)
+  private final MotionPlanner planner;
+  private final double lostNearbyDistance, lostNearbyTime;
 
-  public FieldPlayer(int playerID, int teamID) {
-    super(playerID, teamID);
-    backwardsMotion     = new Motion("../../motions/Backwards.motion");
-    forwardsMotion      = new Motion("../../motions/Forwards.motion");
-    forwards50Motion    = new Motion("../../motions/Forwards50.motion");
-    turnRight40Motion   = new Motion("../../motions/TurnRight40.motion");
-    turnLeft40Motion    = new Motion("../../motions/TurnLeft40.motion");
-    turnRight60Motion   = new Motion("../../motions/TurnRight60.motion");
-    turnLeft60Motion    = new Motion("../../motions/TurnLeft60.motion");
-    turnLeft180Motion   = new Motion("../../motions/TurnLeft180.motion");
-    sideStepRightMotion = new Motion("../../motions/SideStepRight.motion");
-    sideStepLeftMotion  = new Motion("../../motions/SideStepLeft.motion");
-    //* add new Motion for shooting *//
-    shootingMotion = new Motion("../../motions/Shoot.motion");
+  public FieldPlayer(Platform platform, int playerID, int teamID) {
+    this(platform, playerID, teamID, new Parameters());
+  }
 
+  public FieldPlayer(Platform platform, int playerID, int teamID, Parameters parameters) {
+    super(platform, playerID, teamID, parameters);
+    planner = new MotionPlanner(parameters.get("shootDistance", MotionPlanner.SHOOT_DISTANCE),
+                                parameters.get("headingTolerance", MotionPlanner.HEADING_TOLERANCE));
+    lostNearbyDistance = parameters.get("lostNearbyDistance", LOST_NEARBY_DISTANCE);
+    lostNearbyTime = parameters.get("lostNearbyTime", LOST_NEARBY_TIME);
     // move arms along the body
-    Motor leftShoulderPitch = getMotor("LShoulderPitch");
+    Platform.Motor leftShoulderPitch = platform.getMotor("LShoulderPitch");
     leftShoulderPitch.setPosition(1.5);
-    Motor rightShoulderPitch = getMotor("RShoulderPitch");
+    Platform.Motor rightShoulderPitch = platform.getMotor("RShoulderPitch");
     rightShoulderPitch.setPosition(1.5);
   }
 
@@ -63,32 +63,49 @@ public class FieldPlayer extends Player {
     super.runStep();
     double dir = camera.getGoalDirectionAngle();
     if (dir != NaoCam.UNKNOWN)
-      goalDir = dir - headYawPosition.getValue();
+      goalDir = dir - camera.getPerceptionHeadYaw();
+    else if (isLocalized())
+      goalDir = localization.getGoalDirection();
+  }
+
+  // the goal direction follows the body turns (see MotionLibrary.getDisplacement())
+  @Override protected void applyOdometry(double dx, double dy, double dtheta, double fraction) {
+    super.applyOdometry(dx, dy, dtheta, fraction);
+    goalDir = normalizeAngle(goalDir + dtheta);
+  }
+
+  // stop turning around as soon as the ball is seen
+  @Override protected boolean interruptMotion(Platform.Motion motion) {
+    return TURN_LEFT_180.equals(motion.getName()) && getBallDirection() != NaoCam.UNKNOWN;
   }
 
   private void turnRight60() {
-    playMotion(turnRight60Motion); // 59.2 degrees
-    goalDir = normalizeAngle(goalDir - 1.033);
+    playMotion(TURN_RIGHT_60); // 59.2 degrees
   }
 
   private void turnLeft60() {
-    playMotion(turnLeft60Motion); // 59.2 degrees
-    goalDir = normalizeAngle(goalDir + 1.033);
+    playMotion(TURN_LEFT_60); // 59.2 degrees
   }
 
   private void turnRight40() {
-    playMotion(turnRight40Motion); // 39.7 degrees
-    goalDir = normalizeAngle(goalDir - 0.693);
+    playMotion(TURN_RIGHT_40); // 39.7 degrees
   }
 
   private void turnLeft40() {
-    playMotion(turnLeft40Motion); // 39.7 degrees
-    goalDir = normalizeAngle(goalDir + 0.693);
+    playMotion(TURN_LEFT_40); // 39.7 degrees
   }
   
   private void turnLeft180() {
-    playMotion(turnLeft180Motion); // 163.6 degrees
-    goalDir = normalizeAngle(goalDir + 2.855);
+    playMotion(TURN_LEFT_180); // 163.6 degrees
+  }
+
+  // turn to a field point (see Localization) and walk to it when facing it
+  private void goTowards(double x, double y) {
+    double dir = localization.getDirection(x, y);
+    if (Math.abs(dir) > 0.3)
+      turnBodyRel(dir);
+    else
+      playMotion(FORWARDS_50);
   }
 
 
@@ -101,76 +118,68 @@ public class FieldPlayer extends Player {
 
       getUpIfNecessary();
 
-      while (getBallDirection() == NaoCam.UNKNOWN) {
-        System.out.println("searching the ball"); 
+      // search only when the ball estimate is lost, not each time one image misses it
+      while (! isBallTracked()) {
+        telemetry.log(Telemetry.SEARCHING_BALL, getTime());
         getUpIfNecessary();
-        if (getBallDirection() != NaoCam.UNKNOWN) break;
-        headScan();
-        if (getBallDirection() != NaoCam.UNKNOWN) break;
-        playMotion(backwardsMotion);
-        //* added one step backwards*//
-        //if (getBallDirection() != NaoCam.UNKNOWN) break;
-        //playMotion(backwardsMotion);
-        if (getBallDirection() != NaoCam.UNKNOWN) break;
+        if (isBallTracked()) break;
+        // a teammate sees the ball: look there first and walk there if it is hidden
+        TeamMessage teamBall = isLocalized() ? getTeamBall() : null;
+        if (teamBall != null) {
+          if (lookAt(teamBall.getBallX(), teamBall.getBallY())) break;
+          goTowards(teamBall.getBallX(), teamBall.getBallY());
+          continue;
+        }
+        // look where the ball is the most likely to be (see BallSearch)
         headScan();
-        if (getBallDirection() != NaoCam.UNKNOWN) break;
-        turnLeft180();
+        if (isBallTracked()) break;
+        // lost at our feet, below the bottom camera: step back to see it
+        if (ballSearch.isLostNearby(lostNearbyDistance, lostNearbyTime)) {
+          playMotion(BACKWARDS);
+          continue;
+        }
+        // when nothing is left to guess and we know where we are, head for the middle of the field
+        if (ballSearch.isUninformed() && isLocalized() && localization.getDistance(0.0, 0.0) > 1.0) {
+          goTowards(0.0, 0.0);
+          continue;
+        }
+        // otherwise turn the body towards the most likely direction out of reach of the head
+        double turn = ballSearch.getTurnDirection();
+        if (Math.abs(turn) < 0.5)
+          continue;  // in front: look again, the misses move the peak elsewhere
+        else if (Math.abs(turn) > 2.0)
+          turnLeft180();
+        else if (turn > 0.0)
+          turnRight60();
+        else
+          turnLeft60();
       }
 
-      double ballDir = getBallDirection();
-      double ballDist = getBallDistance();
-
-      System.out.println("ball dist: " + ballDist + " ball dir: " + ballDir + " goal dir: " + goalDir);
-
-      //* changed to 0.22 from 0.3 based on observations from simulation *//
-      if (ballDist < 0.22) {
-        System.out.println("short distance");
-
-        if (ballDist<0.15 && goalDir == 0.0)
-          {System.out.println("shooting !!!");
-          playMotion(shootingMotion);}
-
-        
-
-        if (ballDir < -0.15)
-          playMotion(sideStepLeftMotion);
-        else if (ballDir > 0.15)
-          playMotion(sideStepRightMotion);
-        else if (goalDir < -0.35)
-          turnLeft40();
-        else if (goalDir > 0.35)
-          turnRight40();
-        //* only shoot when goal direction is zero and ball is close enough *//
-        else if (ballDist<0.15 && goalDir == 0.0)
-          {System.out.println("shooting !!!");
-          playMotion(shootingMotion);}
-        //* go forwards if goal direction is zero to get close to the goal*//
-        else if (goalDir == 0.0)
-          playMotion(forwards50Motion);
-        else if (ballDist<0.18)
-          playMotion(forwardsMotion);
-        else{
-          //System.out.println("shooting !!!");
-          System.out.println("I'm not gonna shoot yet!!!");}
-          //playMotion(forwards50Motion);}
-        }
-      else {
-        //System.out.println("long distance");
-        double goDir = normalizeAngle(ballDir - goalDir);
+      beginDecision();
+      String motion = decide();
+      if (motion != null)
+        playMotion(motion);
+    }
+  }
 
-        if (goDir < ballDir - 0.5)
-          goDir = ballDir - 0.5;
-        else if (goDir > ballDir + 0.5)
-          goDir = ballDir + 0.5;
+  // the motion to play with the ball tracked: shoot from behind the ball, otherwise
+  // walk there with the fastest sequence of motions, planned again after each one
+  // with the new estimate (see MotionPlanner), null if there is no plan
+  protected String decide() {
+    double ballDir = getEstimatedBallDirection();
+    double ballDist = getEstimatedBallDistance();
 
-        goDir = normalizeAngle(goDir);
+    telemetry.log(Telemetry.BALL_ESTIMATE, getTime(), ballDist, ballDir, goalDir);
 
-        turnBodyRel(goDir);
-        if (ballDist < 0.6)
-          playMotion(forwardsMotion);
-        else
-          playMotion(forwards50Motion);
-      }
+    double shotDir = -goalDir;
+    if (planner.isShootingPose(ballTracker.getX(), ballTracker.getY(), shotDir)) {
+      telemetry.log(Telemetry.SHOOT, getTime());
+      return SHOOT;
     }
+    planner.plan(ballTracker.getX(), ballTracker.getY(), shotDir);
+    if (planner.getPlanLength() > 0)
+      return planner.getPlanMotion(0);
+    telemetry.log(Telemetry.NOT_SHOOTING, getTime());
+    return null;
   }
 }
@@ -7,35 +7,75 @@
 //  Changes:      November 4, 2008: Adapted to Webots6
 //-----------------------------------------------------------------------------
 
-import com.cyberbotics.webots.controller.*;
-
 public class GoalKeeper extends Player {
 
-  private Motion sideStepLeftMotion, sideStepRightMotion, forwards50Motion, backwardsMotion;
-  private int rightStepsCount = 0;
+  // motions of MotionLibrary, loaded on first use
+  private static final String SIDE_STEP_LEFT = "SideStepLeft", SIDE_STEP_RIGHT = "SideStepRight";
+  private static final String FORWARDS_50 = "Forwards50", BACKWARDS = "Backwards";
+  private static final double POSITIONING_GAIN = 0.3;  // keeper offset per meter of ball offset from the middle of the goal
+  private static final double HOME_TOLERANCE = 0.05;   // m
+  private static final double KICK_DISTANCE = 0.8;     // m, a closer ball in front is kicked away
+  private static final double FOLLOW_DISTANCE = 2.0;   // m, a farther ball is watched from the middle of the goal
+
+  // position from the odometry: offset from the middle of the goal (m, left)
+  // and distance in front of the goal line position (m)
+  private double lateral = 0.0, forward = 0.0;
+  private final Interception interception = new Interception();
+  private final double positioningGain, homeTolerance, kickDistance, followDistance;
 
-  public GoalKeeper(int playerID, int teamID) {
-    super(playerID, teamID);
-    forwards50Motion    = new Motion("../../motions/Forwards50.motion");
-    backwardsMotion     = new Motion("../../motions/Backwards.motion");
-    sideStepLeftMotion  = new Motion("../../motions/SideStepLeft.motion");
-    sideStepRightMotion = new Motion("../../motions/SideStepRight.motion");
+  public GoalKeeper(Platform platform, int playerID, int teamID) {
+    this(platform, playerID, teamID, new Parameters());
+  }
 
+  public GoalKeeper(Platform platform, int playerID, int teamID, Parameters parameters) {
+    super(platform, playerID, teamID, parameters);
+    positioningGain = parameters.get("positioningGain", POSITIONING_GAIN);
+    homeTolerance = parameters.get("homeTolerance", HOME_TOLERANCE);
+    kickDistance = parameters.get("kickDistance", KICK_DISTANCE);
+    followDistance = parameters.get("followDistance", FOLLOW_DISTANCE);
     // move arms
-    Motor leftShoulderRoll = getMotor("LShoulderRoll");
-    Motor rightShoulderRoll = getMotor("RShoulderRoll");
+    Platform.Motor leftShoulderRoll = platform.getMotor("LShoulderRoll");
+    Platform.Motor rightShoulderRoll = platform.getMotor("RShoulderRoll");
     leftShoulderRoll.setPosition(1.32);
     rightShoulderRoll.setPosition(-1.32);
   }
 
+  @Override protected int getRole() {
+    return TeamMessage.ROLE_GOALKEEPER;
+  }
+
   private void stepRight() {
-    playMotion(sideStepRightMotion);
-    rightStepsCount++;
+    playMotion(SIDE_STEP_RIGHT);
   }
 
   private void stepLeft() {
-    playMotion(sideStepLeftMotion);
-    rightStepsCount--;
+    playMotion(SIDE_STEP_LEFT);
+  }
+
+  @Override protected void applyOdometry(double dx, double dy, double dtheta, double fraction) {
+    super.applyOdometry(dx, dy, dtheta, fraction);
+    lateral += dy;
+    forward += dx;
+  }
+
+  // predicted shot from the current ball estimate, see Interception
+  private void updateInterception() {
+    if (isBallTracked())
+      interception.update(ballTracker.getX(), ballTracker.getY(), ballTracker.getVelocityX(), ballTracker.getVelocityY(), lateral, forward);
+    else
+      interception.update(0.0, 0.0, 0.0, 0.0, lateral, forward);
+  }
+
+  // stop a side step as soon as a shot needs the keeper elsewhere
+  @Override protected boolean interruptMotion(Platform.Motion motion) {
+    String name = motion.getName();
+    if (! name.equals(SIDE_STEP_LEFT) && ! name.equals(SIDE_STEP_RIGHT))
+      return false;
+    updateInterception();
+    if (! interception.isThreat())
+      return false;
+    interception.plan(lateral);
+    return interception.getPlanLength() == 0 || ! interception.getPlanMotion(0).equals(name);
   }
 
   @Override public void run() {
@@ -45,39 +85,41 @@ public class GoalKeeper extends Player {
     while (true) {
       getUpIfNecessary();
 
-      // loop until ball becomes visible
-      while (getBallDirection() == NaoCam.UNKNOWN) {
+      // loop until the ball position is known
+      while (! isBallTracked()) {
         getUpIfNecessary();
-        if (getBallDirection() != NaoCam.UNKNOWN) break;
+        if (isBallTracked()) break;
         headScan();
       }
 
-      double ballDir = getBallDirection();
-      double ballDist = getBallDistance();
+      beginDecision();
+      double ballDir = getEstimatedBallDirection();
+      double ballDist = getEstimatedBallDistance();
+      updateInterception();
 
-      if (ballDist < 0.8 && ballDir > -0.15 && ballDir < 0.15) {
+      if (interception.isThreat()) {
+        // the ball is coming: move to where it will cross, one motion at a time
+        // and plan again with the new estimate (nothing to do when already on its path)
+        interception.plan(lateral);
+        if (interception.getPlanLength() > 0)
+          playMotion(interception.getPlanMotion(0));
+      }
+      else if (ballDist < kickDistance && ballDir > -0.15 && ballDir < 0.15) {
         // ball is close and in front: try to kick it
-        playMotion(forwards50Motion);
-
-        // move backwards to goal
-        for (int i = 0; i < 5; i++)
-          playMotion(backwardsMotion);
-
+        playMotion(FORWARDS_50);
       }
-      else if (ballDist < 2.0) {
-        // if the ball is within 2 meters
-        // step right/left in the direction of the ball
-        if (ballDir > 0.1 && rightStepsCount < 8)
-          stepRight();
-        else if (ballDir < -0.1 && rightStepsCount > -8)
-          stepLeft();
+      else if (forward > homeTolerance) {
+        // back to the goal line
+        playMotion(BACKWARDS);
       }
       else {
-        // the ball is quite far: step back to the center of the goal
-        if (rightStepsCount < 0)
-          stepRight();
-        else if (rightStepsCount > 0)
+        // stand between the ball and the middle of the goal, or in the middle when the ball is far
+        double target = ballDist < followDistance ? positioningGain * (lateral + ballTracker.getY()) : 0.0;
+        target = clamp(target, -0.8 * Interception.GOAL_HALF_WIDTH, 0.8 * Interception.GOAL_HALF_WIDTH);
+        if (target - lateral > homeTolerance)
           stepLeft();
+        else if (target - lateral < -homeTolerance)
+          stepRight();
       }
 
       runStep();
@@ -0,0 +1,666 @@
+//-----------------------------------------------------------------------------
+//  File:         HeadlessPlatform.java (to be used in a Webots java controllers)
+//  Date:         October 17, 2026
+//  Description:  Platform running without Webots, as fast as the computer allows
+//                A kinematic model of one robot and the ball on the field:
+//                - the motions move the robot by their MotionLibrary displacement
+//                  over their duration, "Shoot" kicks a ball lying in front,
+//                  a rolling ball bounces off the robot
+//                - the cameras draw the ball and the goals in the colors of the
+//                  default ColorTable, with the angle model of ImageAnalyzer
+//                - a fake game controller sends RoboCupGameControlData packets
+//                  and counts the goals
+//                - super_emitter executes SupervisorCommands packets
+//                Field frame of Localization: x towards the goal the robot attacks.
+//                The robot's team is blue, so it attacks the yellow goal.
+//  Project:      Robotstadium, the online robot soccer competition
+//-----------------------------------------------------------------------------
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+
+public class HeadlessPlatform implements Platform {
+
+  // world geometry
+  public static final double GOAL_HALF_WIDTH = 0.75;
+  public static final double GOAL_HEIGHT = 0.8;
+  public static final double BALL_RADIUS = 0.043;
+  public static final double CAMERA_HEIGHT = 0.51;  // as in Player.getBallDistance()
+  private static final double WALL_X = Localization.FIELD_HALF_LENGTH + 0.3;
+  private static final double WALL_Y = Localization.FIELD_HALF_WIDTH + 0.3;
+  private static final double BALL_FRICTION_TIME = 2.0;  // seconds for the ball speed to drop to 1/e
+  private static final double ROBOT_RADIUS = 0.1;        // the ball is pushed away from this distance
+  private static final double KICK_SPEED = 3.0;          // m/s
+  private static final double BOUNCE = 0.3;              // speed kept by a ball bouncing off the robot
+
+  // cameras
+  public static final int CAMERA_WIDTH = 160;
+  public static final int CAMERA_HEIGHT_PIXELS = 120;
+  public static final double CAMERA_FOV = 0.78;
+  private static final double HEAD_SPEED = 6.0;  // rad/s
+  private static final int GAME_CONTROL_PERIOD = 480;  // ms, as nao_soccer_supervisor.c
+
+  // colors of the default ColorTable
+  private static final int SKY = 0xff787882;
+  private static final int FIELD = 0xff288c28;
+  private static final int BALL = 0xfff08c32;
+  private static final int SKY_BLUE_GOAL = 0xff1ec8c8;
+  private static final int YELLOW_GOAL = 0xff8c8c0f;
+
+  // called after every step, e.g. to move the ball or to make the robot fall
+  public interface Script {
+    void step(HeadlessPlatform platform);
+  }
+
+  private long time;  // ms
+  private long timeLimit = Long.MAX_VALUE;
+  private Script script;
+
+  // world state
+  private double robotX, robotY, robotTheta;
+  private double ballX, ballY, ballVX, ballVY;
+  private int fall = Player.FALL_NONE;
+
+  // fake game controller
+  private final int teamID;
+  private byte gameState = RoboCupGameControlData.STATE_PLAYING;
+  private byte kickOffTeam = RoboCupGameControlData.TEAM_BLUE;
+  private short ownScore, opponentScore;
+  private long lastGameControlTime = -GAME_CONTROL_PERIOD;
+
+  private final HashMap<String, HeadlessMotor> motors = new HashMap<>();
+  private final HashMap<String, HeadlessCamera> cameras = new HashMap<>();
+  private final HashMap<String, HeadlessMotion> motions = new HashMap<>();
+  private final HashMap<String, Integer> leds = new HashMap<>();
+  private final HeadlessReceiver receiver = new HeadlessReceiver();
+  private int teamMessages;
+
+  // run a field player for some simulated seconds as fast as possible:
+  // java -cp .:Controller.jar HeadlessPlatform [seconds]
+  public static void main(String[] args) {
+    double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 600.0;
+    HeadlessPlatform platform = new HeadlessPlatform(1);
+    platform.setTimeLimit(seconds);
+    platform.setBall(0.5, 0.3, 0.0, 0.0);
+    long start = System.nanoTime();
+    try {
+      new FieldPlayer(platform, 1, 1).run();
+    }
+    catch (Platform.Terminated e) {
+      // time limit reached
+    }
+    double elapsed = (System.nanoTime() - start) / 1e9;
+    System.out.printf("%.0f simulated seconds in %.2f s (%.0f steps/s), score %d - %d%n", seconds, elapsed,
+                      seconds * 1000.0 / Player.SIMULATION_STEP / elapsed, platform.getOwnScore(), platform.getOpponentScore());
+  }
+
+  public HeadlessPlatform(int teamID) {
+    this.teamID = teamID;
+    setRobotPose(-1.0, 0.0, 0.0);
+  }
+
+  // -- scripting ---------------------------------------------------------
+
+  public void setScript(Script script) {
+    this.script = script;
+  }
+
+  // step() returns -1 once the simulation time reaches this value (seconds)
+  public void setTimeLimit(double seconds) {
+    timeLimit = Math.round(seconds * 1000.0);
+  }
+
+  public void setRobotPose(double x, double y, double theta) {
+    robotX = x;
+    robotY = y;
+    robotTheta = Localization.normalizeAngle(theta);
+  }
+
+  public void setBall(double x, double y, double vx, double vy) {
+    ballX = x;
+    ballY = y;
+    ballVX = vx;
+    ballVY = vy;
+  }
+
+  // the robot falls on its front or on its back until a get-up motion is played
+  public void makeFall(boolean front) {
+    fall = front ? Player.FALL_FRONT : Player.FALL_BACK;
+    for (HeadlessMotion motion : motions.values())
+      motion.playing = false;
+  }
+
+  public void setGameState(byte state) {
+    gameState = state;
+  }
+
+  // a message from another robot or from a test, read by the next Receiver.getData()
+  public void deliver(byte[] data) {
+    receiver.queue.add(data.clone());
+  }
+
+  public double getRobotX() {
+    return robotX;
+  }
+
+  public double getRobotY() {
+    return robotY;
+  }
+
+  public double getRobotTheta() {
+    return robotTheta;
+  }
+
+  public double getBallX() {
+    return ballX;
+  }
+
+  public double getBallY() {
+    return ballY;
+  }
+
+  public int getOwnScore() {
+    return ownScore;
+  }
+
+  public int getOpponentScore() {
+    return opponentScore;
+  }
+
+  public int getTeamMessageCount() {
+    return teamMessages;
+  }
+
+  // last value set on a LED, 0 if never set
+  public int getLEDValue(String name) {
+    Integer value = leds.get(name);
+    return value == null ? 0 : value;
+  }
+
+  // -- simulation --------------------------------------------------------
+
+  @Override public int step(int ms) {
+    if (time >= timeLimit)
+      return -1;
+    time += ms;
+    double dt = ms / 1000.0;
+
+    for (HeadlessMotor motor : motors.values())
+      motor.update(dt);
+    for (HeadlessMotion motion : motions.values())
+      motion.update(ms);
+    updateBall(dt);
+    updateGameControl();
+    if (script != null)
+      script.step(this);
+    return 0;
+  }
+
+  @Override public double getTime() {
+    return time / 1000.0;
+  }
+
+  // move the robot by a displacement in its own frame
+  private void moveRobot(double dx, double dy, double dtheta) {
+    double c = Math.cos(robotTheta), s = Math.sin(robotTheta);
+    robotX = clamp(robotX + c * dx - s * dy, WALL_X);
+    robotY = clamp(robotY + s * dx + c * dy, WALL_Y);
+    robotTheta = Localization.normalizeAngle(robotTheta + dtheta);
+
+    // the robot pushes the ball out of its way
+    double ex = ballX - robotX, ey = ballY - robotY;
+    double distance = Math.hypot(ex, ey);
+    if (distance < ROBOT_RADIUS && distance > 0.0) {
+      ballX = robotX + ex / distance * ROBOT_RADIUS;
+      ballY = robotY + ey / distance * ROBOT_RADIUS;
+    }
+  }
+
+  // kick the ball if it lies in front of the feet
+  private void kick() {
+    double c = Math.cos(robotTheta), s = Math.sin(robotTheta);
+    double ex = ballX - robotX, ey = ballY - robotY;
+    double forwards = c * ex + s * ey, left = -s * ex + c * ey;
+    if (forwards > 0.0 && forwards < 0.25 && Math.abs(left) < 0.1) {
+      ballVX = c * KICK_SPEED;
+      ballVY = s * KICK_SPEED;
+    }
+  }
+
+  private void updateBall(double dt) {
+    ballX += ballVX * dt;
+    ballY += ballVY * dt;
+    double damping = Math.exp(-dt / BALL_FRICTION_TIME);
+    ballVX *= damping;
+    ballVY *= damping;
+
+    // a ball rolling into the robot bounces off its legs
+    double ex = ballX - robotX, ey = ballY - robotY;
+    double distance = Math.hypot(ex, ey);
+    if (distance < ROBOT_RADIUS && distance > 0.0) {
+      double nx = ex / distance, ny = ey / distance;
+      double normalSpeed = ballVX * nx + ballVY * ny;
+      if (normalSpeed < 0.0) {
+        ballVX -= (1.0 + BOUNCE) * normalSpeed * nx;
+        ballVY -= (1.0 + BOUNCE) * normalSpeed * ny;
+      }
+      ballX = robotX + nx * ROBOT_RADIUS;
+      ballY = robotY + ny * ROBOT_RADIUS;
+    }
+
+    // goals, then bounce on the walls around the field
+    if (Math.abs(ballX) > Localization.FIELD_HALF_LENGTH && Math.abs(ballY) < GOAL_HALF_WIDTH) {
+      if (ballX > 0) {
+        ownScore++;
+        kickOffTeam = RoboCupGameControlData.TEAM_RED;
+      }
+      else {
+        opponentScore++;
+        kickOffTeam = RoboCupGameControlData.TEAM_BLUE;
+      }
+      setBall(0.0, 0.0, 0.0, 0.0);
+    }
+    if (Math.abs(ballX) > WALL_X) {
+      ballX = clamp(ballX, WALL_X);
+      ballVX = -ballVX;
+    }
+    if (Math.abs(ballY) > WALL_Y) {
+      ballY = clamp(ballY, WALL_Y);
+      ballVY = -ballVY;
+    }
+  }
+
+  private void updateGameControl() {
+    if (time - lastGameControlTime < GAME_CONTROL_PERIOD)
+      return;
+    lastGameControlTime = time;
+    if (receiver.enabled)
+      receiver.queue.add(gameControlPacket());
+  }
+
+  // same layout as RoboCupGameControlData.update()
+  private byte[] gameControlPacket() {
+    byte[] packet = new byte[RoboCupGameControlData.SIZE];
+    packet[0] = 'R';
+    packet[1] = 'G';
+    packet[2] = 'm';
+    packet[3] = 'e';
+    packet[4] = 6;  // version
+    packet[8] = TeamInfo.MAX_NUM_PLAYERS;
+    packet[9] = gameState;
+    packet[10] = 1;  // first half
+    packet[11] = kickOffTeam;
+    packet[12] = RoboCupGameControlData.STATE2_NORMAL;
+    putInt(packet, 16, Math.max(0, 600 - (int)(time / 1000)));
+    // blue team: ours, red team: the opponents (team number + 1)
+    packet[20] = (byte)teamID;
+    packet[21] = RoboCupGameControlData.TEAM_BLUE;
+    packet[22] = (byte)ownScore;
+    packet[23] = (byte)(ownScore >> 8);
+    packet[40] = (byte)(teamID + 1);
+    packet[41] = RoboCupGameControlData.TEAM_RED;
+    packet[42] = (byte)opponentScore;
+    packet[43] = (byte)(opponentScore >> 8);
+    putInt(packet, 60, Float.floatToIntBits((float)ballX));
+    putInt(packet, 64, Float.floatToIntBits((float)ballY));
+    return packet;
+  }
+
+  private static void putInt(byte[] bytes, int offset, int value) {
+    for (int i = 0; i < 4; i++)
+      bytes[offset + i] = (byte)(value >> (8 * i));
+  }
+
+  private static double clamp(double value, double limit) {
+    return value < -limit ? -limit : value > limit ? limit : value;
+  }
+
+  // execute a SupervisorCommands packet, positions are in the field frame
+  private void executeCommands(byte[] data) {
+    if (data.length < 6 || data[0] != 'M' || data[1] != 'C' || data[2] != 'm' || data[3] != 'd')
+      return;
+    int offset = 6;
+    for (int i = 0; i < (data[5] & 0xff); i++) {
+      if (data[offset] == SupervisorCommands.MOVE_ROBOT && offset + 35 <= data.length) {
+        setRobotPose(getDouble(data, offset + 3), getDouble(data, offset + 11), getDouble(data, offset + 27));
+        offset += 35;
+      }
+      else if (data[offset] == SupervisorCommands.MOVE_BALL && offset + 25 <= data.length) {
+        setBall(getDouble(data, offset + 1), getDouble(data, offset + 9), 0.0, 0.0);
+        offset += 25;
+      }
+      else
+        return;
+    }
+  }
+
+  private static double getDouble(byte[] bytes, int offset) {
+    long bits = 0;
+    for (int i = 7; i >= 0; i--)
+      bits = (bits << 8) | (bytes[offset + i] & 0xff);
+    return Double.longBitsToDouble(bits);
+  }
+
+  // -- devices -----------------------------------------------------------
+
+  @Override public Camera getCamera(String name) {
+    HeadlessCamera camera = cameras.get(name);
+    if (camera == null) {
+      camera = new HeadlessCamera(name.equals("CameraBottom") ? NaoCam.OFFSET_ANGLE : 0.0);
+      cameras.put(name, camera);
+    }
+    return camera;
+  }
+
+  @Override public Motor getMotor(String name) {
+    return motor(name);
+  }
+
+  private HeadlessMotor motor(String name) {
+    HeadlessMotor motor = motors.get(name);
+    if (motor == null) {
+      if (name.equals("HeadYaw"))
+        motor = new HeadlessMotor(-2.08, 2.08);
+      else if (name.equals("HeadPitch"))
+        motor = new HeadlessMotor(-0.67, 0.51);
+      else
+        motor = new HeadlessMotor(-Math.PI, Math.PI);
+      motors.put(name, motor);
+    }
+    return motor;
+  }
+
+  // "HeadYawS" measures the "HeadYaw" motor
+  @Override public PositionSensor getPositionSensor(String name) {
+    final HeadlessMotor motor = motor(name.endsWith("S") ? name.substring(0, name.length() - 1) : name);
+    return new PositionSensor() {
+      public void enable(int samplingPeriod) {}
+      public double getValue() { return motor.position; }
+    };
+  }
+
+  @Override public Accelerometer getAccelerometer(String name) {
+    return new Accelerometer() {
+      public void enable(int samplingPeriod) {}
+      public double[] getValues() { return new double[] { 0.0, 0.0, 9.81 }; }
+    };
+  }
+
+  @Override public Gyro getGyro(String name) {
+    return new Gyro() {
+      public void enable(int samplingPeriod) {}
+      public double[] getValues() { return new double[3]; }
+    };
+  }
+
+  @Override public InertialUnit getInertialUnit(String name) {
+    return new InertialUnit() {
+      public void enable(int samplingPeriod) {}
+      public double[] getRollPitchYaw() {
+        double pitch = fall == Player.FALL_FRONT ? 1.5 : fall == Player.FALL_BACK ? -1.5 : 0.0;
+        return new double[] { 0.0, pitch, robotTheta };
+      }
+    };
+  }
+
+  @Override public DistanceSensor getDistanceSensor(String name) {
+    return new DistanceSensor() {
+      public void enable(int samplingPeriod) {}
+      public double getValue() { return 2.55; }  // nothing in range
+    };
+  }
+
+  @Override public LED getLED(final String name) {
+    return new LED() {
+      public void set(int value) { leds.put(name, value); }
+    };
+  }
+
+  @Override public TouchSensor getTouchSensor(String name) {
+    return new TouchSensor() {
+      public void enable(int samplingPeriod) {}
+      public double getValue() { return fall == Player.FALL_NONE ? 20.0 : 0.0; }
+    };
+  }
+
+  @Override public Emitter getEmitter(String name) {
+    if (name.equals("super_emitter"))
+      return new Emitter() {
+        public int send(byte[] data) { executeCommands(data); return 1; }
+      };
+    return new Emitter() {
+      public int send(byte[] data) { teamMessages++; return 1; }  // there are no teammates
+    };
+  }
+
+  @Override public Receiver getReceiver(String name) {
+    return receiver;
+  }
+
+  @Override public GPS getGPS(String name) {
+    return new GPS() {
+      public void enable(int samplingPeriod) {}
+      public double[] getValues() { return new double[] { robotX, robotY, 0.0 }; }
+    };
+  }
+
+  @Override public Motion getMotion(String name) {
+    HeadlessMotion motion = motions.get(name);
+    if (motion == null) {
+      motion = new HeadlessMotion(name);
+      motions.put(name, motion);
+    }
+    return motion;
+  }
+
+  private final class HeadlessMotor implements Motor {
+    final double min, max;
+    double position, target;
+
+    HeadlessMotor(double min, double max) {
+      this.min = min;
+      this.max = max;
+    }
+
+    public void setPosition(double position) {
+      target = position < min ? min : position > max ? max : position;
+    }
+
+    public double getMinPosition() {
+      return min;
+    }
+
+    public double getMaxPosition() {
+      return max;
+    }
+
+    void update(double dt) {
+      double step = HEAD_SPEED * dt;
+      position += Math.max(-step, Math.min(step, target - position));
+    }
+  }
+
+  private static final class HeadlessReceiver implements Receiver {
+    final ArrayDeque<byte[]> queue = new ArrayDeque<>();
+    boolean enabled;
+
+    public void enable(int samplingPeriod) {
+      enabled = true;
+    }
+
+    public int getQueueLength() {
+      return queue.size();
+    }
+
+    public byte[] getData() {
+      return queue.peek();
+    }
+
+    public void nextPacket() {
+      queue.poll();
+    }
+  }
+
+  // plays for the duration of its motion file and moves the robot proportionally
+  private final class HeadlessMotion implements Motion {
+    final String name;
+    final int duration;
+    final double[] displacement;
+    int motionTime;
+    boolean playing;
+
+    HeadlessMotion(String name) {
+      this.name = name;
+      MotionData data = MotionLibrary.getData(name);
+      duration = data == null ? 0 : data.getDuration();
+      displacement = MotionLibrary.getDisplacement(name);
+    }
+
+    public String getName() { return name; }
+    public boolean isValid() { return duration > 0; }
+    public void play() { playing = duration > 0; }
+    public void stop() { playing = false; }
+    public boolean isOver() { return motionTime >= duration; }
+    public int getTime() { return motionTime; }
+    public void setTime(int time) { motionTime = time; }
+    public int getDuration() { return duration; }
+
+    void update(int ms) {
+      if (! playing)
+        return;
+      int previous = motionTime;
+      motionTime = Math.min(duration, motionTime + ms);
+      double fraction = (double)(motionTime - previous) / duration;
+      if (fall == Player.FALL_NONE)
+        moveRobot(displacement[0] * fraction, displacement[1] * fraction, displacement[2] * fraction);
+      if (name.equals("Shoot") && previous < duration / 2 && motionTime >= duration / 2)
+        kick();
+      if (motionTime >= duration) {
+        playing = false;
+        if (name.startsWith("StandUp"))
+          fall = Player.FALL_NONE;
+      }
+    }
+  }
+
+  // draws the ball and the goals seen from the head position
+  private final class HeadlessCamera implements Camera {
+    final double offsetAngle;  // pitch of the camera axis with respect to the head
+    int[] image = new int[CAMERA_WIDTH * CAMERA_HEIGHT_PIXELS];  // a new array per frame, like Webots
+    final double[] p = new double[2], a = new double[2], b = new double[2], top = new double[2];  // projections
+    int samplingPeriod;
+    long enableTime;
+    long frame = -1;  // index of the image in image[]
+
+    HeadlessCamera(double offsetAngle) {
+      this.offsetAngle = offsetAngle;
+    }
+
+    public void enable(int samplingPeriod) {
+      this.samplingPeriod = samplingPeriod;
+      enableTime = time;
+      frame = -1;
+    }
+
+    public void disable() {
+      samplingPeriod = 0;
+    }
+
+    public int getSamplingPeriod() {
+      return samplingPeriod;
+    }
+
+    public int getWidth() {
+      return CAMERA_WIDTH;
+    }
+
+    public int getHeight() {
+      return CAMERA_HEIGHT_PIXELS;
+    }
+
+    public double getFov() {
+      return CAMERA_FOV;
+    }
+
+    // a new image every samplingPeriod after the camera was enabled, in its own array:
+    // the previous one may still be analysed (see NaoCam.setAsynchronous())
+    public int[] getImage() {
+      if (samplingPeriod <= 0)
+        return null;
+      long current = (time - enableTime) / samplingPeriod;
+      if (current != frame) {
+        frame = current;
+        render();
+      }
+      return image;
+    }
+
+    private void render() {
+      image = new int[CAMERA_WIDTH * CAMERA_HEIGHT_PIXELS];
+      double yaw = motor("HeadYaw").position;
+      double pitch = motor("HeadPitch").position + offsetAngle;
+
+      // sky above the horizon, field below
+      int horizon = row(0.0, pitch);
+      for (int y = 0; y < CAMERA_HEIGHT_PIXELS; y++)
+        java.util.Arrays.fill(image, y * CAMERA_WIDTH, (y + 1) * CAMERA_WIDTH, y < horizon ? SKY : FIELD);
+
+      drawGoal(Localization.FIELD_HALF_LENGTH, YELLOW_GOAL, yaw, pitch);
+      drawGoal(-Localization.FIELD_HALF_LENGTH, SKY_BLUE_GOAL, yaw, pitch);
+
+      // ball
+      if (! project(ballX, ballY, BALL_RADIUS, yaw, pitch, p))
+        return;
+      double distance = Math.sqrt(squaredDistance(ballX, ballY) + (CAMERA_HEIGHT - BALL_RADIUS) * (CAMERA_HEIGHT - BALL_RADIUS));
+      double radius = Math.atan(BALL_RADIUS / distance) / CAMERA_FOV * CAMERA_WIDTH;
+      fillDisc(p[0], p[1], Math.max(radius, 0.5), BALL);
+    }
+
+    private void drawGoal(double goalX, int color, double yaw, double pitch) {
+      if (! project(goalX, -GOAL_HALF_WIDTH, 0.0, yaw, pitch, a) || ! project(goalX, GOAL_HALF_WIDTH, 0.0, yaw, pitch, b))
+        return;
+      project(goalX, 0.0, GOAL_HEIGHT, yaw, pitch, top);
+      fillRect(Math.min(a[0], b[0]), top[1], Math.max(a[0], b[0]), Math.max(a[1], b[1]), color);
+    }
+
+    private double squaredDistance(double x, double y) {
+      return (x - robotX) * (x - robotX) + (y - robotY) * (y - robotY);
+    }
+
+    // image coordinates (column, row) of a field point, false if it is behind the camera
+    private boolean project(double x, double y, double z, double yaw, double pitch, double[] pixel) {
+      double c = Math.cos(robotTheta), s = Math.sin(robotTheta);
+      double ex = x - robotX, ey = y - robotY;
+      double forwards = c * ex + s * ey, left = -s * ex + c * ey;
+      double direction = Localization.normalizeAngle(yaw - Math.atan2(left, forwards));  // positive towards the right
+      if (Math.abs(direction) > Math.PI / 2)
+        return false;
+      double elevation = Math.atan2(z - CAMERA_HEIGHT, Math.hypot(forwards, left));
+      pixel[0] = (direction / CAMERA_FOV + 0.5) * CAMERA_WIDTH;
+      pixel[1] = row(elevation, pitch);
+      return true;
+    }
+
+    // the angle model of ImageAnalyzer: elevation = -(row / height - 0.5) * fov
+    private int row(double elevation, double pitch) {
+      return (int)Math.round((0.5 - (elevation + pitch) / CAMERA_FOV) * CAMERA_HEIGHT_PIXELS);
+    }
+
+    private void fillRect(double x0, double y0, double x1, double y1, int color) {
+      int minX = Math.max(0, (int)Math.round(x0)), maxX = Math.min(CAMERA_WIDTH - 1, (int)Math.round(x1));
+      int minY = Math.max(0, (int)Math.round(y0)), maxY = Math.min(CAMERA_HEIGHT_PIXELS - 1, (int)Math.round(y1));
+      for (int y = minY; y <= maxY; y++)
+        for (int x = minX; x <= maxX; x++)
+          image[y * CAMERA_WIDTH + x] = color;
+    }
+
+    private void fillDisc(double cx, double cy, double radius, int color) {
+      int minX = Math.max(0, (int)Math.floor(cx - radius)), maxX = Math.min(CAMERA_WIDTH - 1, (int)Math.ceil(cx + radius));
+      int minY = Math.max(0, (int)Math.floor(cy - radius)), maxY = Math.min(CAMERA_HEIGHT_PIXELS - 1, (int)Math.ceil(cy + radius));
+      for (int y = minY; y <= maxY; y++)
+        for (int x = minX; x <= maxX; x++)
+          if ((x + 0.5 - cx) * (x + 0.5 - cx) + (y + 0.5 - cy) * (y + 0.5 - cy) <= radius * radius)
+            image[y * CAMERA_WIDTH + x] = color;
+    }
+  }
+}
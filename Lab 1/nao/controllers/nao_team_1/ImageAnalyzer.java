@@ -0,0 +1,128 @@
+//-----------------------------------------------------------------------------
+//  File:         ImageAnalyzer.java (to be used in a Webots java controllers)
+//  Date:         October 17, 2026
+//  Description:  Blob analysis of NaoCam images, with a ball tracking window
+//                This class does not use any Webots device, so it can run on the
+//                controller thread or on the VisionWorker thread
+//  Project:      Robotstadium, the online robot soccer competition
+//-----------------------------------------------------------------------------
+
+public class ImageAnalyzer {
+
+  // ball tracking window: margin around the last ball bounding box (pixels)
+  // and maximum number of windowed images between two full image searches
+  private static final int WINDOW_MARGIN = 8;
+  private static final int FULL_SCAN_INTERVAL = 8;
+
+  private final BlobExtractor blobs = new BlobExtractor();
+  private volatile ColorTable colorTable;
+  private volatile boolean tracking = true;
+
+  // tracking state: previous image and ball blob
+  private boolean ballFound;
+  private double ballX, ballY;
+  private int ballWidth, ballHeight;
+  private int framesSinceFullScan;
+  private boolean lastTopCamera = true;
+  private double lastHeadYaw, lastHeadPitch;
+
+  public ImageAnalyzer(ColorTable colorTable) {
+    this.colorTable = colorTable;
+  }
+
+  public void setColorTable(ColorTable colorTable) {
+    this.colorTable = colorTable;
+  }
+
+  public void setTracking(boolean tracking) {
+    this.tracking = tracking;
+  }
+
+  // blobs of the last analysed image, ranked by decreasing area
+  public BlobExtractor getBlobs() {
+    return blobs;
+  }
+
+  // analyse an image: label the blobs of every color class in a single pass
+  // and keep the area, centroid and bounding box of the biggest one
+  // while the ball is tracked only a window around its last position is searched,
+  // the window is moved and widened according to the head motion since the last image
+  public void analyze(int[] image, int width, int height, double fov, boolean topCamera,
+                      double headYaw, double headPitch, double time, Perception out) {
+
+    blobs.ensureCapacity(width * height);
+    ColorTable table = colorTable;
+
+    boolean useWindow = tracking
+      && ballFound
+      && topCamera == lastTopCamera
+      && framesSinceFullScan < FULL_SCAN_INTERVAL;
+
+    out.windowed = false;
+    if (useWindow) {
+      // a head turn to the left (positive yaw) moves the ball towards the right of the image
+      // a head move downwards (positive pitch) moves the ball towards the top of the image
+      double shiftX = (headYaw - lastHeadYaw) / fov * width;
+      double shiftY = -(headPitch - lastHeadPitch) / fov * height;
+      double centerX = ballX + shiftX;
+      double centerY = ballY + shiftY;
+      double halfWidth = ballWidth / 2.0 + WINDOW_MARGIN + Math.abs(shiftX);
+      double halfHeight = ballHeight / 2.0 + WINDOW_MARGIN + Math.abs(shiftY);
+
+      int x0 = Math.max(0, (int)(centerX - halfWidth));
+      int x1 = Math.min(width - 1, (int)(centerX + halfWidth));
+      int y0 = Math.max(0, (int)(centerY - halfHeight));
+      int y1 = Math.min(height - 1, (int)(centerY + halfHeight));
+
+      if (x0 <= x1 && y0 <= y1) {
+        blobs.extract(image, width, table, x0, y0, x1, y1);
+        if (blobs.getBiggestBlob(NaoCam.BALL) >= 0) {
+          // the other classes were not searched in this image
+          out.windowed = true;
+          framesSinceFullScan++;
+        }
+      }
+    }
+
+    // ball lost or not tracked: search the whole image
+    if (! out.windowed) {
+      blobs.extract(image, width, table, 0, 0, width - 1, height - 1);
+      framesSinceFullScan = 0;
+    }
+
+    for (int c = 0; c < NaoCam.NUM_CLASSES; c++) {
+      int b = blobs.getBiggestBlob(c);
+      if (b < 0 || (out.windowed && c != NaoCam.BALL)) {
+        out.blobArea[c] = 0;
+        out.directionAngle[c] = NaoCam.UNKNOWN;
+        out.elevationAngle[c] = NaoCam.UNKNOWN;
+        continue;
+      }
+      out.blobArea[c] = blobs.getArea(b);
+      out.centroidX[c] = blobs.getCentroidX(b);
+      out.centroidY[c] = blobs.getCentroidY(b);
+      out.minX[c] = blobs.getMinX(b);
+      out.maxX[c] = blobs.getMaxX(b);
+      out.minY[c] = blobs.getMinY(b);
+      out.maxY[c] = blobs.getMaxY(b);
+      out.directionAngle[c] = (out.centroidX[c] / width - 0.5) * fov;
+      out.elevationAngle[c] = -(out.centroidY[c] / height - 0.5) * fov;
+    }
+
+    out.time = time;
+    out.topCamera = topCamera;
+    out.headYaw = headYaw;
+    out.headPitch = headPitch;
+
+    ballFound = out.blobArea[NaoCam.BALL] > 0;
+    if (ballFound) {
+      ballX = out.centroidX[NaoCam.BALL];
+      ballY = out.centroidY[NaoCam.BALL];
+      ballWidth = out.maxX[NaoCam.BALL] - out.minX[NaoCam.BALL];
+      ballHeight = out.maxY[NaoCam.BALL] - out.minY[NaoCam.BALL];
+    }
+    lastHeadYaw = headYaw;
+    lastHeadPitch = headPitch;
+    lastTopCamera = topCamera;
+  }
+}
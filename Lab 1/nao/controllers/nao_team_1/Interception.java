@@ -0,0 +1,172 @@
+//-----------------------------------------------------------------------------
+//  File:         Interception.java (to be used in a Webots java controllers)
+//  Date:         October 17, 2026
+//  Description:  Shot prediction and interception plan of the GoalKeeper.
+//                The ball trajectory is extrapolated from the BallTracker estimate
+//                (position and velocity from the successive detections, slowed
+//                down by the friction of the carpet) to get the time to contact
+//                with the goal line. The plan is the shortest sequence of side
+//                steps, with or without a Forwards50 first, that puts the keeper
+//                on the ball path before the ball gets there, using the durations
+//                and displacements of the motions.
+//                Keeper frame: x forwards (towards the field), y to the left,
+//                origin at the keeper, the goal line is behind it.
+//  Project:      Robotstadium, the online robot soccer competition
+//-----------------------------------------------------------------------------
+
+public class Interception {
+
+  public static final double GOAL_HALF_WIDTH = 0.7;      // m, between the posts
+  public static final String SIDE_STEP_LEFT = "SideStepLeft", SIDE_STEP_RIGHT = "SideStepRight";
+  public static final String FORWARDS_50 = "Forwards50";
+
+  private static final double FRICTION_TIME = 2.0;       // s, as BallTracker's ball model
+  private static final double MIN_APPROACH_SPEED = 0.1;  // m/s towards the goal
+  private static final double LINE_BEHIND = 0.1;         // m, goal line behind the keeper at its home position
+  private static final double REACH = 0.15;              // m, half width of the keeper's body and legs
+  private static final double TIME_STEP = 0.05;          // s, resolution of the trajectory checks
+  private static final double HORIZON = 10.0;            // s, longest predicted trajectory
+  private static final int MAX_SIDE_STEPS = 14;
+  private static final double DEFAULT_DURATION = 5.0;    // s, when a motion file cannot be read
+
+  // motions used by the plans: duration (s) and displacement (m)
+  private final double sideStepTime, sideStep, forwardsTime, forwards;
+
+  // last update()
+  private double x, y, vx, vy;
+  private boolean threat;
+  private double contactTime, interceptY;
+
+  // last plan()
+  private final String[] plan = new String[MAX_SIDE_STEPS + 1];
+  private int planLength;
+  private double planTime;
+  private boolean reachable;
+
+  public Interception() {
+    sideStepTime = duration(SIDE_STEP_LEFT);
+    sideStep = Math.abs(MotionLibrary.getDisplacement(SIDE_STEP_LEFT)[1]);
+    forwardsTime = duration(FORWARDS_50);
+    forwards = MotionLibrary.getDisplacement(FORWARDS_50)[0];
+  }
+
+  private static double duration(String motion) {
+    MotionData data = MotionLibrary.getData(motion);
+    return data == null ? DEFAULT_DURATION : data.getDuration() / 1000.0;
+  }
+
+  // ball estimate (see BallTracker) and keeper position: lateral offset from the
+  // middle of the goal (m, left) and distance in front of its home position (m)
+  public void update(double ballX, double ballY, double ballVX, double ballVY, double lateral, double forward) {
+    x = ballX;
+    y = ballY;
+    vx = ballVX;
+    vy = ballVY;
+    threat = false;
+    if (vx > -MIN_APPROACH_SPEED)
+      return;
+
+    // x(t) = x + vx * T * (1 - exp(-t / T)) reaches the goal line if the ball is fast enough
+    double line = -(forward + LINE_BEHIND);
+    double travel = (line - x) / (vx * FRICTION_TIME);  // fraction of the rolling distance
+    if (travel <= 0.0 || travel >= 1.0)
+      return;
+    contactTime = -FRICTION_TIME * Math.log(1.0 - travel);
+    interceptY = y + vy * FRICTION_TIME * travel;
+    threat = Math.abs(lateral + interceptY) < GOAL_HALF_WIDTH + REACH;
+  }
+
+  // true if the ball will cross the goal line between the posts
+  public boolean isThreat() {
+    return threat;
+  }
+
+  // seconds until the ball crosses the goal line
+  public double getTimeToContact() {
+    return contactTime;
+  }
+
+  // where the ball crosses the goal line, relative to the keeper (m, left)
+  public double getInterceptY() {
+    return interceptY;
+  }
+
+  // plan the motions against the current threat, see getPlanMotion()
+  // lateral: keeper offset from the middle of the goal (m, left), the keeper stays between the posts
+  // return false if no plan gets on the ball path in time, the plan then gets as close as possible
+  public boolean plan(double lateral) {
+    planLength = 0;
+    planTime = 0.0;
+    reachable = false;
+    if (! threat)
+      return false;
+
+    // candidate end positions: side steps, with or without a Forwards50 first
+    int bestSteps = 0, bestForwards = 0;
+    double bestTime = Double.POSITIVE_INFINITY;
+    for (int f = 0; f <= 1; f++) {
+      for (int k = -MAX_SIDE_STEPS; k <= MAX_SIDE_STEPS; k++) {
+        double py = k * sideStep;
+        if (Math.abs(lateral + py) > GOAL_HALF_WIDTH)
+          continue;
+        double time = f * forwardsTime + Math.abs(k) * sideStepTime;
+        if (time < bestTime && onPath(f * forwards, py, time)) {
+          bestTime = time;
+          bestSteps = k;
+          bestForwards = f;
+        }
+      }
+    }
+    reachable = bestTime < Double.POSITIVE_INFINITY;
+
+    // out of reach: side steps towards the crossing point, the first ones may still deflect the ball
+    if (! reachable) {
+      bestForwards = 0;
+      bestSteps = (int)Math.round(interceptY / sideStep);
+      bestSteps = Math.max(-MAX_SIDE_STEPS, Math.min(MAX_SIDE_STEPS, bestSteps));
+      while (bestSteps != 0 && Math.abs(lateral + bestSteps * sideStep) > GOAL_HALF_WIDTH)
+        bestSteps -= Integer.signum(bestSteps);
+    }
+
+    if (bestForwards == 1)
+      add(FORWARDS_50, forwardsTime);
+    for (int i = 0; i < Math.abs(bestSteps); i++)
+      add(bestSteps > 0 ? SIDE_STEP_LEFT : SIDE_STEP_RIGHT, sideStepTime);
+    return reachable;
+  }
+
+  private void add(String motion, double time) {
+    plan[planLength++] = motion;
+    planTime += time;
+  }
+
+  // the ball passes within REACH of (px, py) after the keeper gets there (at time t)
+  // and before it crosses the goal line
+  private boolean onPath(double px, double py, double t) {
+    for (double s = t; s <= Math.min(contactTime, HORIZON); s += TIME_STEP) {
+      double decay = FRICTION_TIME * (1.0 - Math.exp(-s / FRICTION_TIME));
+      double bx = x + vx * decay, by = y + vy * decay;
+      if (Math.hypot(bx - px, by - py) < REACH)
+        return true;
+    }
+    return false;
+  }
+
+  public int getPlanLength() {
+    return planLength;
+  }
+
+  public String getPlanMotion(int i) {
+    return plan[i];
+  }
+
+  // seconds needed to play the whole plan
+  public double getPlanTime() {
+    return planTime;
+  }
+
+  // true if the last plan gets on the ball path in time
+  public boolean isReachable() {
+    return reachable;
+  }
+}
@@ -0,0 +1,87 @@
+//-----------------------------------------------------------------------------
+//  File:         KeyframePlatform.java (to be used in a Webots java controllers)
+//  Date:         October 17, 2026
+//  Description:  Platform wrapping another one whose motions are played by a
+//                MotionEngine, which sets the joint motors before each step,
+//                instead of the motion player of the wrapped platform.
+//                The other devices are those of the wrapped platform.
+//  Project:      Robotstadium, the online robot soccer competition
+//-----------------------------------------------------------------------------
+
+public class KeyframePlatform implements Platform {
+
+  private final Platform platform;
+  private final MotionEngine engine;
+
+  // speed: playback speed of the motions, see MotionEngine.KeyframeMotion.setSpeed()
+  public KeyframePlatform(Platform platform, double speed) {
+    this.platform = platform;
+    engine = new MotionEngine(platform);
+    engine.setDefaultSpeed(speed);
+  }
+
+  public MotionEngine getEngine() {
+    return engine;
+  }
+
+  @Override public int step(int ms) {
+    engine.update(ms);
+    return platform.step(ms);
+  }
+
+  @Override public double getTime() {
+    return platform.getTime();
+  }
+
+  @Override public Camera getCamera(String name) {
+    return platform.getCamera(name);
+  }
+
+  @Override public Motor getMotor(String name) {
+    return platform.getMotor(name);
+  }
+
+  @Override public PositionSensor getPositionSensor(String name) {
+    return platform.getPositionSensor(name);
+  }
+
+  @Override public Accelerometer getAccelerometer(String name) {
+    return platform.getAccelerometer(name);
+  }
+
+  @Override public Gyro getGyro(String name) {
+    return platform.getGyro(name);
+  }
+
+  @Override public InertialUnit getInertialUnit(String name) {
+    return platform.getInertialUnit(name);
+  }
+
+  @Override public DistanceSensor getDistanceSensor(String name) {
+    return platform.getDistanceSensor(name);
+  }
+
+  @Override public LED getLED(String name) {
+    return platform.getLED(name);
+  }
+
+  @Override public TouchSensor getTouchSensor(String name) {
+    return platform.getTouchSensor(name);
+  }
+
+  @Override public Emitter getEmitter(String name) {
+    return platform.getEmitter(name);
+  }
+
+  @Override public Receiver getReceiver(String name) {
+    return platform.getReceiver(name);
+  }
+
+  @Override public GPS getGPS(String name) {
+    return platform.getGPS(name);
+  }
+
+  @Override public Motion getMotion(String name) {
+    return engine.getMotion(name);
+  }
+}
@@ -0,0 +1,411 @@
+//-----------------------------------------------------------------------------
+//  File:         Localization.java (to be used in a Webots java controllers)
+//  Date:         October 17, 2026
+//  Description:  Monte Carlo (particle filter) self-localization
+//                Field frame: origin at the center spot, x towards the goal we
+//                attack, y to the left, theta counter-clockwise from x (meters
+//                and radians). Particles are moved by the odometry of the
+//                motions and weighted by the direction and distance of the goals.
+//                The particle state is kept in flat arrays and nothing is
+//                allocated after construction.
+//  Project:      Robotstadium, the online robot soccer competition
+//-----------------------------------------------------------------------------
+
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+public class Localization {
+
+  // field geometry
+  public static final double FIELD_HALF_LENGTH = 4.5;   // goal line x
+  public static final double FIELD_HALF_WIDTH = 3.0;    // side line y
+  private static final double BORDER = 0.4;             // particles may stray this far outside
+
+  // model parameters
+  private static final double ODOMETRY_NOISE_RATIO = 0.15;   // relative error of the motion displacements
+  private static final double TURN_DRIFT = 0.05;             // rad of heading error per m walked
+  private static final double SLIP_NOISE = 0.02;             // m per motion, also when turning on the spot
+  private static final double BEARING_NOISE = 0.1;           // rad
+  private static final double DISTANCE_NOISE = 0.3;          // m, plus DISTANCE_NOISE_RATIO * distance
+  private static final double DISTANCE_NOISE_RATIO = 0.25;
+  private static final double MIN_LIKELIHOOD = 1e-3;         // outlier floor of a measurement
+  private static final double RANDOM_FRACTION = 0.02;        // particles re-drawn at random when lost
+  private static final double LOST_LIKELIHOOD = 0.05;        // mean likelihood below which we are lost
+
+  // the estimate is only trusted when the particles agree
+  private static final double MAX_POSITION_STD = 0.8;        // m
+  private static final double MAX_HEADING_STD = 0.35;        // rad
+
+  // particles are processed in chunks, on the common ForkJoinPool from this count on
+  public static final int DEFAULT_PARTICLES = 1000;
+  public static final int PARALLEL_THRESHOLD = 2048;
+  private static final int CHUNK_SIZE = 256;
+
+  private final int count;
+  private double[] x, y, theta;          // particles
+  private double[] nx, ny, ntheta;       // resampling target, swapped with the particles
+  private final double[] w;              // normalized weights
+  private final double[] cumulative;     // for resampling
+  private final Chunk[] chunks;
+  private final boolean parallel;
+  private long seed;                     // xorshift state of the sequential parts
+
+  // last estimate (see estimate())
+  private double meanX, meanY, meanTheta, positionStd, headingStd;
+
+  // measurement of the current sensor update, read by the chunks
+  private double goalX, bearing, distance;
+
+  public Localization() {
+    this(DEFAULT_PARTICLES, 1);
+  }
+
+  public Localization(int count, long seed) {
+    this.count = count;
+    this.seed = seed == 0 ? 1 : seed;
+    x = new double[count];
+    y = new double[count];
+    theta = new double[count];
+    nx = new double[count];
+    ny = new double[count];
+    ntheta = new double[count];
+    w = new double[count];
+    cumulative = new double[count];
+    chunks = new Chunk[(count + CHUNK_SIZE - 1) / CHUNK_SIZE];
+    for (int i = 0; i < chunks.length; i++)
+      chunks[i] = new Chunk(i * CHUNK_SIZE, Math.min(count, (i + 1) * CHUNK_SIZE), nextLong() ^ (i + 1));
+    parallel = count >= PARALLEL_THRESHOLD;
+    reset();
+  }
+
+  // spread the particles uniformly over the field
+  public void reset() {
+    for (int i = 0; i < count; i++)
+      randomize(i);
+    estimate();
+  }
+
+  // all the particles around a known pose, e.g. the kick-off position
+  public void reset(double px, double py, double ptheta, double std) {
+    for (int i = 0; i < count; i++) {
+      x[i] = px + std * gaussian();
+      y[i] = py + std * gaussian();
+      theta[i] = normalizeAngle(ptheta + std * gaussian());
+      w[i] = 1.0 / count;
+    }
+    estimate();
+  }
+
+  // the robot moved by (dx, dy) meters (forwards, left) and turned by dtheta radians (counter-clockwise)
+  public void applyOdometry(double dx, double dy, double dtheta) {
+    applyOdometry(dx, dy, dtheta, 1.0);
+  }
+
+  // same for a fraction of a motion (0 to 1): the variances of the noise are
+  // those of the whole motion times fraction, so that the slices of a motion
+  // add up to the noise of the motion whatever their count
+  public void applyOdometry(double dx, double dy, double dtheta, double fraction) {
+    run(Chunk.MOVE, dx, dy, dtheta, fraction > 0.0 ? Math.min(1.0, fraction) : 1.0);
+    estimate();
+  }
+
+  // a goal was seen at the given direction (rad, positive towards the right of the body)
+  // and floor distance (m), use NaoCam.UNKNOWN if the distance could not be measured
+  public void updateOpponentGoal(double direction, double distance) {
+    update(FIELD_HALF_LENGTH, direction, distance);
+  }
+
+  public void updateOwnGoal(double direction, double distance) {
+    update(-FIELD_HALF_LENGTH, direction, distance);
+  }
+
+  private void update(double goalX, double direction, double distance) {
+    this.goalX = goalX;
+    this.bearing = direction;
+    this.distance = distance > 0.0 ? distance : NaoCam.UNKNOWN;
+    run(Chunk.WEIGH, 0.0, 0.0, 0.0, 1.0);
+
+    // the weights summed to 1 before, so their new sum is the mean likelihood
+    double sum = 0.0;
+    for (Chunk chunk : chunks)
+      sum += chunk.sum;
+    double mean = sum;
+    if (! (sum > 0.0)) {
+      reset();
+      return;
+    }
+
+    double squares = 0.0;
+    for (int i = 0; i < count; i++) {
+      w[i] /= sum;
+      squares += w[i] * w[i];
+    }
+
+    // resample when the effective number of particles drops below half
+    if (1.0 / squares < count / 2)
+      resample(mean < LOST_LIKELIHOOD ? RANDOM_FRACTION : 0.0);
+    estimate();
+  }
+
+  // low variance (systematic) resampling, a fraction of the particles is
+  // re-drawn uniformly to recover from a wrong estimate
+  private void resample(double randomFraction) {
+    double total = 0.0;
+    for (int i = 0; i < count; i++) {
+      total += w[i];
+      cumulative[i] = total;
+    }
+
+    double step = total / count;
+    double r = uniform() * step;
+    int j = 0;
+    for (int i = 0; i < count; i++) {
+      double u = r + i * step;
+      while (j < count - 1 && cumulative[j] < u)
+        j++;
+      nx[i] = x[j];
+      ny[i] = y[j];
+      ntheta[i] = theta[j];
+    }
+
+    double[] t;
+    t = x; x = nx; nx = t;
+    t = y; y = ny; ny = t;
+    t = theta; theta = ntheta; ntheta = t;
+
+    int random = (int)(randomFraction * count);
+    for (int i = 0; i < random; i++)
+      randomize((int)(uniform() * count));
+    for (int i = 0; i < count; i++)
+      w[i] = 1.0 / count;
+  }
+
+  private void randomize(int i) {
+    x[i] = (uniform() * 2.0 - 1.0) * FIELD_HALF_LENGTH;
+    y[i] = (uniform() * 2.0 - 1.0) * FIELD_HALF_WIDTH;
+    theta[i] = (uniform() * 2.0 - 1.0) * Math.PI;
+    w[i] = 1.0 / count;
+  }
+
+  // weighted mean pose and spread of the particles
+  private void estimate() {
+    double sx = 0.0, sy = 0.0, sc = 0.0, ss = 0.0;
+    for (int i = 0; i < count; i++) {
+      sx += w[i] * x[i];
+      sy += w[i] * y[i];
+      sc += w[i] * Math.cos(theta[i]);
+      ss += w[i] * Math.sin(theta[i]);
+    }
+    double vxy = 0.0;
+    for (int i = 0; i < count; i++) {
+      double ex = x[i] - sx, ey = y[i] - sy;
+      vxy += w[i] * (ex * ex + ey * ey);
+    }
+    meanX = sx;
+    meanY = sy;
+    meanTheta = Math.atan2(ss, sc);
+    positionStd = Math.sqrt(vxy);
+    double resultant = Math.min(1.0, Math.hypot(sc, ss));
+    headingStd = resultant > 0.0 ? Math.sqrt(-2.0 * Math.log(resultant)) : Math.PI;
+  }
+
+  // process all the particles, in parallel for large counts
+  // each chunk has its own random generator so the result does not depend on the threads
+  private void run(int mode, double dx, double dy, double dtheta, double fraction) {
+    for (Chunk chunk : chunks)
+      chunk.set(mode, dx, dy, dtheta, fraction);
+    if (parallel && chunks.length > 1) {
+      for (Chunk chunk : chunks)
+        chunk.reinitialize();
+      ForkJoinTask.invokeAll(chunks);
+    }
+    else {
+      for (Chunk chunk : chunks)
+        chunk.process();
+    }
+  }
+
+  private final class Chunk extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    static final int MOVE = 0, WEIGH = 1;
+
+    final int from, to;
+    long seed;
+    int mode;
+    double dx, dy, dtheta;
+    double fraction;  // of the motion moved by (dx, dy, dtheta)
+    double sum;  // sum of the weights after WEIGH
+
+    Chunk(int from, int to, long seed) {
+      this.from = from;
+      this.to = to;
+      this.seed = seed == 0 ? 1 : seed;
+    }
+
+    void set(int mode, double dx, double dy, double dtheta, double fraction) {
+      this.mode = mode;
+      this.dx = dx;
+      this.dy = dy;
+      this.dtheta = dtheta;
+      this.fraction = fraction;
+    }
+
+    @Override protected void compute() {
+      process();
+    }
+
+    void process() {
+      if (mode == MOVE)
+        move();
+      else
+        weigh();
+    }
+
+    // the noise of the whole motion, its variance scaled by the fraction played
+    private void move() {
+      double translation = Math.hypot(dx, dy) / fraction, turn = Math.abs(dtheta) / fraction;
+      double scale = Math.sqrt(fraction);
+      double translationStd = scale * (SLIP_NOISE + ODOMETRY_NOISE_RATIO * translation);
+      double rotationStd = scale * (ODOMETRY_NOISE_RATIO * turn + TURN_DRIFT * translation);
+      for (int i = from; i < to; i++) {
+        double mx = dx + translationStd * gaussian();
+        double my = dy + translationStd * gaussian();
+        double c = Math.cos(theta[i]), s = Math.sin(theta[i]);
+        x[i] = clamp(x[i] + c * mx - s * my, FIELD_HALF_LENGTH + BORDER);
+        y[i] = clamp(y[i] + s * mx + c * my, FIELD_HALF_WIDTH + BORDER);
+        theta[i] = normalizeAngle(theta[i] + dtheta + rotationStd * gaussian());
+      }
+    }
+
+    private void weigh() {
+      double sum = 0.0;
+      double bearingTerm = 0.5 / (BEARING_NOISE * BEARING_NOISE);
+      for (int i = from; i < to; i++) {
+        double gx = goalX - x[i], gy = -y[i];
+        double expectedBearing = normalizeAngle(theta[i] - Math.atan2(gy, gx));  // positive towards the right
+        double e = normalizeAngle(bearing - expectedBearing);
+        double likelihood = Math.exp(-bearingTerm * e * e);
+        if (distance != NaoCam.UNKNOWN) {
+          double expectedDistance = Math.hypot(gx, gy);
+          double std = DISTANCE_NOISE + DISTANCE_NOISE_RATIO * expectedDistance;
+          double d = (distance - expectedDistance) / std;
+          likelihood *= Math.exp(-0.5 * d * d);
+        }
+        w[i] *= likelihood + MIN_LIKELIHOOD;
+        sum += w[i];
+      }
+      this.sum = sum;
+    }
+
+    private double gaussian() {
+      return Localization.gaussian(nextUniform());
+    }
+
+    // xorshift64*, uniform in [0, 1)
+    private double nextUniform() {
+      seed ^= seed >>> 12;
+      seed ^= seed << 25;
+      seed ^= seed >>> 27;
+      return ((seed * 0x2545F4914F6CDD1DL) >>> 11) * 0x1.0p-53;
+    }
+  }
+
+  // standard normal value by inversion of a uniform value (Box-Muller without
+  // the second value would waste half of the random numbers and a cached value
+  // would make the result depend on the call order)
+  private static double gaussian(double u) {
+    // Acklam's rational approximation, the relative error is below 1.2e-9
+    final double a1 = -39.69683028665376, a2 = 220.9460984245205, a3 = -275.9285104469687;
+    final double a4 = 138.3577518672690, a5 = -30.66479806614716, a6 = 2.506628277459239;
+    final double b1 = -54.47609879822406, b2 = 161.5858368580409, b3 = -155.6989798598866;
+    final double b4 = 66.80131188771972, b5 = -13.28068155288572;
+    final double c1 = -7.784894002430293e-03, c2 = -0.3223964580411365, c3 = -2.400758277161838;
+    final double c4 = -2.549732539343734, c5 = 4.374664141464968, c6 = 2.938163982698783;
+    final double d1 = 7.784695709041462e-03, d2 = 0.3224671290700398, d3 = 2.445134137142996;
+    final double d4 = 3.754408661907416;
+    final double LOW = 0.02425;
+
+    if (u <= 0.0)
+      u = 0x1.0p-53;
+    if (u < LOW) {
+      double q = Math.sqrt(-2.0 * Math.log(u));
+      return (((((c1 * q + c2) * q + c3) * q + c4) * q + c5) * q + c6) / ((((d1 * q + d2) * q + d3) * q + d4) * q + 1.0);
+    }
+    if (u > 1.0 - LOW) {
+      double q = Math.sqrt(-2.0 * Math.log(1.0 - u));
+      return -(((((c1 * q + c2) * q + c3) * q + c4) * q + c5) * q + c6) / ((((d1 * q + d2) * q + d3) * q + d4) * q + 1.0);
+    }
+    double q = u - 0.5, r = q * q;
+    return (((((a1 * r + a2) * r + a3) * r + a4) * r + a5) * r + a6) * q / (((((b1 * r + b2) * r + b3) * r + b4) * r + b5) * r + 1.0);
+  }
+
+  private double gaussian() {
+    return gaussian(uniform());
+  }
+
+  private double uniform() {
+    return (nextLong() >>> 11) * 0x1.0p-53;
+  }
+
+  private long nextLong() {
+    seed ^= seed >>> 12;
+    seed ^= seed << 25;
+    seed ^= seed >>> 27;
+    return seed * 0x2545F4914F6CDD1DL;
+  }
+
+  private static double clamp(double value, double limit) {
+    return value < -limit ? -limit : value > limit ? limit : value;
+  }
+
+  // normalize angle between -PI and +PI
+  static double normalizeAngle(double angle) {
+    while (angle > Math.PI) angle -= 2.0 * Math.PI;
+    while (angle < -Math.PI) angle += 2.0 * Math.PI;
+    return angle;
+  }
+
+  // true when the particles agree on a pose
+  public boolean isLocalized() {
+    return positionStd < MAX_POSITION_STD && headingStd < MAX_HEADING_STD;
+  }
+
+  public double getX() {
+    return meanX;
+  }
+
+  public double getY() {
+    return meanY;
+  }
+
+  public double getTheta() {
+    return meanTheta;
+  }
+
+  public double getPositionStd() {
+    return positionStd;
+  }
+
+  public double getHeadingStd() {
+    return headingStd;
+  }
+
+  // direction of a field point with respect to the front of the body
+  // (rad, positive towards the right like the ball and goal directions)
+  public double getDirection(double fx, double fy) {
+    return normalizeAngle(meanTheta - Math.atan2(fy - meanY, fx - meanX));
+  }
+
+  public double getDistance(double fx, double fy) {
+    return Math.hypot(fx - meanX, fy - meanY);
+  }
+
+  // direction of the center of the goal we attack
+  public double getGoalDirection() {
+    return getDirection(FIELD_HALF_LENGTH, 0.0);
+  }
+
+  public int getParticleCount() {
+    return count;
+  }
+}
@@ -0,0 +1,279 @@
+//-----------------------------------------------------------------------------
+//  File:         MatchRunner.java (to be used in a Webots java controllers)
+//  Date:         October 17, 2026
+//  Description:  Runs scenarios on HeadlessPlatform fields in parallel, one per
+//                combination of parameter values and seed, and prints a table of
+//                the results (see Parameters for the names of the parameters):
+//                - striker: a FieldPlayer and a ball placed at random, until the
+//                  goal is scored or TRIAL_TIME, trials times
+//                - keeper: a GoalKeeper and shots at random points of its goal,
+//                  one per SHOT_PERIOD, trials times
+//                A run depends only on its parameters and seed, not on the threads.
+//                Usage: java MatchRunner <striker|keeper> [-seeds n] [-trials n]
+//                       [-threads n] [-o file] [name=value1,value2... | name=from:to:step]...
+//                e.g.   java MatchRunner striker -seeds 8 shootDistance=0.12,0.15,0.18
+//  Project:      Robotstadium, the online robot soccer competition
+//-----------------------------------------------------------------------------
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class MatchRunner {
+
+  private static final double TRIAL_TIME = 150.0;  // s, striker
+  private static final double SHOT_PERIOD = 20.0;  // s, keeper
+  private static final double TOUCH_DISTANCE = 0.1;  // m, the ball moved: the robot reached it
+
+  // outcome of one run
+  private static final class Result {
+    final Parameters parameters;  // shared by the seeds of a combination
+    final long seed;
+    TreeSet<String> unread;       // parameters never read by the player
+    int trials, goals, conceded, touches, falls;
+    double touchTime;      // sum over the touches, s
+    double simulatedTime, wallTime;
+    String error;
+
+    Result(Parameters parameters, long seed) {
+      this.parameters = parameters;
+      this.seed = seed;
+    }
+
+    double getMeanTouchTime() {
+      return touches == 0 ? Double.NaN : touchTime / touches;
+    }
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    if (args.length < 1 || ! (args[0].equals("striker") || args[0].equals("keeper"))) {
+      System.out.println("usage: java MatchRunner <striker|keeper> [-seeds n] [-trials n] [-threads n] [-o file]");
+      System.out.println("                        [name=value1,value2... | name=from:to:step]...");
+      return;
+    }
+    final boolean keeper = args[0].equals("keeper");
+    int seeds = 4, threads = Runtime.getRuntime().availableProcessors();
+    int trials = 10;
+    PrintStream out = System.out;
+    ArrayList<Parameters> sweep = new ArrayList<>();
+    sweep.add(new Parameters().setBatch(true));
+    try {
+      for (int i = 1; i < args.length; i++) {
+        if (args[i].equals("-seeds"))
+          seeds = Integer.parseInt(args[++i]);
+        else if (args[i].equals("-trials"))
+          trials = Integer.parseInt(args[++i]);
+        else if (args[i].equals("-threads"))
+          threads = Integer.parseInt(args[++i]);
+        else if (args[i].equals("-o"))
+          out = new PrintStream(args[++i]);
+        else
+          sweep = expand(sweep, args[i]);
+      }
+    }
+    catch (IllegalArgumentException | ArrayIndexOutOfBoundsException | FileNotFoundException e) {
+      System.out.println("MatchRunner: " + e.getMessage());
+      return;
+    }
+
+    // all the runs are queued, the results are printed in the order of the queue
+    System.err.printf("%d runs on %d threads%n", sweep.size() * seeds, threads);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    ArrayList<Future<Result>> futures = new ArrayList<>();
+    for (final Parameters parameters : sweep) {
+      for (int s = 1; s <= seeds; s++) {
+        final long seed = s;
+        final int n = trials;
+        futures.add(executor.submit(() -> run(keeper, parameters, seed, n)));
+      }
+    }
+    executor.shutdown();
+
+    long start = System.nanoTime();
+    out.println("parameters\tseed\ttrials\tgoals\tconceded\ttouches\tmean touch s\tfalls\tsimulated s\twall s");
+    ArrayList<Result> results = new ArrayList<>();
+    for (Future<Result> future : futures) {
+      Result result;
+      try {
+        result = future.get();
+      }
+      catch (ExecutionException e) {
+        System.err.println("MatchRunner: " + e.getCause());
+        continue;
+      }
+      results.add(result);
+      out.printf("%s\t%d\t%d\t%d\t%d\t%d\t%.1f\t%d\t%.0f\t%.2f%s%n", name(result.parameters), result.seed, result.trials,
+                 result.goals, result.conceded, result.touches, result.getMeanTouchTime(), result.falls,
+                 result.simulatedTime, result.wallTime, result.error == null ? "" : "\t" + result.error);
+      out.flush();
+    }
+    double elapsed = (System.nanoTime() - start) / 1e9;
+
+    // parameters never read by the players: probably misspelled
+    if (! results.isEmpty() && results.get(0).unread != null && ! results.get(0).unread.isEmpty())
+      System.err.println("MatchRunner: unknown parameters " + results.get(0).unread);
+
+    // per combination: totals over the seeds
+    System.err.printf("%n%-40s %8s %8s %8s %12s %6s%n", "parameters", "trials", "goals", "conceded", "mean touch s", "falls");
+    for (int i = 0; i < results.size(); ) {
+      Parameters parameters = results.get(i).parameters;
+      int trialCount = 0, goals = 0, conceded = 0, touches = 0, falls = 0;
+      double touchTime = 0.0;
+      for (; i < results.size() && results.get(i).parameters == parameters; i++) {
+        Result result = results.get(i);
+        trialCount += result.trials;
+        goals += result.goals;
+        conceded += result.conceded;
+        touches += result.touches;
+        touchTime += result.touchTime;
+        falls += result.falls;
+      }
+      System.err.printf("%-40s %8d %8d %8d %12.1f %6d%n", name(parameters), trialCount, goals, conceded,
+                        touches == 0 ? Double.NaN : touchTime / touches, falls);
+    }
+    System.err.printf("%d runs in %.1f s%n", results.size(), elapsed);
+    if (out != System.out)
+      out.close();
+  }
+
+  private static String name(Parameters parameters) {
+    String name = parameters.toString();
+    return name.isEmpty() ? "defaults" : name;
+  }
+
+  // each parameter set times each value of "name=value1,value2..." or "name=from:to:step"
+  private static ArrayList<Parameters> expand(ArrayList<Parameters> sweep, String definition) {
+    int equal = definition.indexOf('=');
+    if (equal <= 0)
+      throw new IllegalArgumentException("expected name=values: " + definition);
+    String name = definition.substring(0, equal);
+    ArrayList<Double> values = new ArrayList<>();
+    try {
+      String[] range = definition.substring(equal + 1).split(":");
+      if (range.length == 3) {
+        double from = Double.parseDouble(range[0]), to = Double.parseDouble(range[1]), step = Double.parseDouble(range[2]);
+        if (step <= 0.0)
+          throw new IllegalArgumentException("the step must be positive: " + definition);
+        for (int k = 0; from + k * step <= to + 1e-9; k++)
+          values.add(Math.round((from + k * step) * 1e9) / 1e9);  // 0.6, not 0.6000000000000001
+      }
+      else {
+        for (String value : definition.substring(equal + 1).split(","))
+          values.add(Double.parseDouble(value));
+      }
+    }
+    catch (NumberFormatException e) {
+      throw new IllegalArgumentException("invalid values: " + definition);
+    }
+
+    ArrayList<Parameters> expanded = new ArrayList<>();
+    for (Parameters parameters : sweep) {
+      for (double value : values) {
+        expanded.add(parameters.copy().set(name, value));
+      }
+    }
+    return expanded;
+  }
+
+  // one scenario on its own field, in the calling thread
+  private static Result run(boolean keeper, Parameters shared, long seed, int trials) {
+    Result result = new Result(shared, seed);
+    Parameters parameters = shared.copy();
+    HeadlessPlatform platform = new HeadlessPlatform(1);
+    Random random = new Random(seed);
+    Player player;
+    long start = System.nanoTime();
+    try {
+      if (keeper) {
+        keeperScript(platform, random, trials, result);
+        player = new GoalKeeper(platform, 0, 1, parameters);
+      }
+      else {
+        strikerScript(platform, random, trials, result);
+        player = new FieldPlayer(platform, 1, 1, parameters);
+      }
+      try {
+        player.run();
+      }
+      catch (Platform.Terminated e) {
+        // time limit reached
+      }
+      result.falls = (int)player.metrics.getCount(Metrics.FALLS);
+      result.unread = parameters.getUnread();
+    }
+    catch (RuntimeException e) {
+      result.error = e.toString();
+    }
+    result.simulatedTime = platform.getTime();
+    result.wallTime = (System.nanoTime() - start) / 1e9;
+    result.conceded = platform.getOpponentScore();
+    return result;
+  }
+
+  // robot and ball placed at random in our half and the middle of the field, a trial
+  // ends with a goal or after TRIAL_TIME, the ball has been reached when it moved
+  private static void strikerScript(final HeadlessPlatform platform, final Random random, final int trials, final Result result) {
+    final double[] trial = new double[3];  // start time, initial ball position
+    final boolean[] touched = new boolean[1];
+    final int[] score = new int[1];
+    platform.setTimeLimit(trials * TRIAL_TIME);
+    final Runnable place = () -> {
+      platform.setRobotPose(-1.0 + 2.0 * random.nextDouble(), -1.5 + 3.0 * random.nextDouble(), (2.0 * random.nextDouble() - 1.0) * Math.PI);
+      platform.setBall(0.5 + 2.5 * random.nextDouble(), -1.5 + 3.0 * random.nextDouble(), 0.0, 0.0);
+      trial[0] = platform.getTime();
+      trial[1] = platform.getBallX();
+      trial[2] = platform.getBallY();
+      touched[0] = false;
+      result.trials++;
+    };
+    place.run();
+    platform.setScript(p -> {
+      double time = p.getTime() - trial[0];
+      if (! touched[0] && Math.hypot(p.getBallX() - trial[1], p.getBallY() - trial[2]) > TOUCH_DISTANCE) {
+        touched[0] = true;
+        result.touches++;
+        result.touchTime += time;
+      }
+      boolean goal = p.getOwnScore() != score[0];
+      if (goal) {
+        score[0] = p.getOwnScore();
+        result.goals++;
+      }
+      if (goal || time >= TRIAL_TIME) {
+        if (result.trials < trials)
+          place.run();
+        else
+          p.setTimeLimit(p.getTime());  // the last trial is over
+      }
+    });
+  }
+
+  // keeper on its goal line, one shot per SHOT_PERIOD from 1.5 to 2.5 m at a random
+  // point of the goal, reaching the goal line at 0.3 to 1 m/s
+  private static void keeperScript(final HeadlessPlatform platform, final Random random, final int trials, final Result result) {
+    final double GOAL_X = -Localization.FIELD_HALF_LENGTH, FRICTION_TIME = 2.0;
+    final long period = Math.round(SHOT_PERIOD * 1000.0);
+    platform.setTimeLimit(trials * SHOT_PERIOD);
+    platform.setRobotPose(GOAL_X + 0.1, 0.0, 0.0);
+    platform.setBall(GOAL_X + 2.0, 0.0, 0.0, 0.0);
+    platform.setScript(p -> {
+      long ms = Math.round(p.getTime() * 1000.0);
+      if (ms % period == period / 4) {
+        double x = GOAL_X + 1.5 + random.nextDouble(), y = 2.0 * random.nextDouble() - 1.0;
+        double target = 1.3 * random.nextDouble() - 0.65;
+        double distance = Math.hypot(GOAL_X - x, target - y);
+        double speed = 0.3 + 0.7 * random.nextDouble() + distance / FRICTION_TIME;
+        p.setBall(x, y, (GOAL_X - x) / distance * speed, (target - y) / distance * speed);
+        result.trials++;
+      }
+      else if (ms % period == 0)
+        p.setBall(GOAL_X + 2.0, 0.0, 0.0, 0.0);
+    });
+  }
+}
@@ -0,0 +1,164 @@
+//-----------------------------------------------------------------------------
+//  File:         Metrics.java (to be used in a Webots java controllers)
+//  Date:         October 17, 2026
+//  Description:  Latency histograms and event counters of the control loop,
+//                see Player. Recording a duration is one System.nanoTime() call
+//                and a few array updates, nothing is allocated.
+//  Project:      Robotstadium, the online robot soccer competition
+//-----------------------------------------------------------------------------
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+public class Metrics {
+
+  // timers: wall time of the phases of the control loop
+  public static final int STEP = 0;           // whole Player.step()
+  public static final int CONTROL = 1;        // controller time between two platform steps
+  public static final int PLATFORM_STEP = 2;  // inside Platform.step(): the simulator
+  public static final int READ_MESSAGES = 3;  // readIncomingMessages()
+  public static final int PROCESS_IMAGE = 4;  // processImage()
+  public static final int TRACK_BALL = 5;     // trackBall()
+  public static final int DECISION = 6;       // from Player.beginDecision() to the first action
+  public static final int PLAY_MOTION = 7;    // playMotion(), the steps of the motion included
+  private static final String[] TIMER_NAMES = {
+    "step", "control", "platform step", "readIncomingMessages", "processImage", "trackBall", "decision", "playMotion"
+  };
+
+  // counters
+  public static final int STEPS = 0;
+  public static final int OVERRUNS = 1;       // control time longer than the simulation step
+  public static final int FRAMES = 2;         // images analysed
+  public static final int BALL_LOST = 3;
+  public static final int FALLS = 4;
+  public static final int CAMERA_SWITCHES = 5;
+  private static final String[] COUNTER_NAMES = {
+    "steps", "overruns", "frames processed", "ball lost", "falls", "camera switches"
+  };
+
+  private final Histogram[] timers = new Histogram[TIMER_NAMES.length];
+  private final long[] counters = new long[COUNTER_NAMES.length];
+
+  public Metrics() {
+    for (int i = 0; i < timers.length; i++)
+      timers[i] = new Histogram();
+  }
+
+  // start of a timed phase, pass the result to stop()
+  public static long start() {
+    return System.nanoTime();
+  }
+
+  // end of a timed phase started at start, return the time now
+  public long stop(int timer, long start) {
+    long now = System.nanoTime();
+    timers[timer].record(now - start);
+    return now;
+  }
+
+  public void record(int timer, long nanos) {
+    timers[timer].record(nanos);
+  }
+
+  public void count(int counter) {
+    counters[counter]++;
+  }
+
+  public long getCount(int counter) {
+    return counters[counter];
+  }
+
+  public Histogram getTimer(int timer) {
+    return timers[timer];
+  }
+
+  public void reset() {
+    for (Histogram timer : timers)
+      timer.reset();
+    Arrays.fill(counters, 0);
+  }
+
+  public void dump(PrintStream out) {
+    out.printf("%-22s %10s %10s %10s %10s %10s %10s %10s%n",
+               "timer", "count", "mean us", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us");
+    for (int i = 0; i < timers.length; i++) {
+      Histogram h = timers[i];
+      if (h.getCount() == 0)
+        continue;
+      out.printf("%-22s %10d %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n", TIMER_NAMES[i], h.getCount(),
+                 h.getMean() / 1000.0, h.getPercentile(0.50) / 1000.0, h.getPercentile(0.90) / 1000.0,
+                 h.getPercentile(0.99) / 1000.0, h.getPercentile(0.999) / 1000.0, h.getMax() / 1000.0);
+    }
+    for (int i = 0; i < counters.length; i++)
+      out.printf("%-22s %10d%n", COUNTER_NAMES[i], counters[i]);
+  }
+
+  // log-linear histogram of durations in nanoseconds, like HdrHistogram:
+  // the values below 2 * SUB_BUCKETS are exact, above each power of two is
+  // split in SUB_BUCKETS buckets, so that the error is below 1 / SUB_BUCKETS (1.6%)
+  public static class Histogram {
+    private static final int SHIFT = 6;
+    private static final int SUB_BUCKETS = 1 << SHIFT;
+    private static final int MAX_EXPONENT = 40;  // 2^46 ns, about 20 hours
+
+    private final long[] buckets = new long[(MAX_EXPONENT + 2) * SUB_BUCKETS];
+    private long count, sum, max;
+
+    public void record(long value) {
+      if (value < 0)
+        value = 0;
+      buckets[index(value)]++;
+      count++;
+      sum += value;
+      if (value > max)
+        max = value;
+    }
+
+    private static int index(long value) {
+      int exponent = 63 - Long.numberOfLeadingZeros(value) - SHIFT;  // < 0 for the exact values
+      if (exponent <= 0)
+        return (int)value;
+      if (exponent > MAX_EXPONENT)
+        return (MAX_EXPONENT + 2) * SUB_BUCKETS - 1;
+      return exponent * SUB_BUCKETS + (int)(value >>> exponent);
+    }
+
+    // middle of the values of a bucket
+    private static long value(int index) {
+      int exponent = Math.max(0, index / SUB_BUCKETS - 1);
+      long low = (long)(index - exponent * SUB_BUCKETS) << exponent;
+      return low + ((1L << exponent) >> 1);
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public double getMean() {
+      return count == 0 ? 0.0 : (double)sum / count;
+    }
+
+    public long getMax() {
+      return max;
+    }
+
+    // value below which a fraction p of the values are, 0 if empty
+    public long getPercentile(double p) {
+      if (count == 0)
+        return 0;
+      long rank = Math.max(1, (long)Math.ceil(p * count));
+      long seen = 0;
+      for (int i = 0; i < buckets.length; i++) {
+        seen += buckets[i];
+        if (seen >= rank)
+          return Math.min(value(i), max);
+      }
+      return max;
+    }
+
+    public void reset() {
+      Arrays.fill(buckets, 0);
+      count = sum = max = 0;
+    }
+  }
+}
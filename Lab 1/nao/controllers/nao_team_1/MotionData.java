@@ -0,0 +1,154 @@
+//-----------------------------------------------------------------------------
+//  File:         MotionData.java (to be used in a Webots java controllers)
+//  Date:         October 17, 2026
+//  Description:  Keyframes of a .motion file in primitive arrays, with a compact
+//                binary form used by MotionLibrary to cache parsed files
+//  Project:      Robotstadium, the online robot soccer competition
+//-----------------------------------------------------------------------------
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+
+public class MotionData {
+
+  private static final int BINARY_VERSION = 1;
+
+  // a pose is close enough to the initial pose to interrupt the motion (radians)
+  private static final float SAFE_POSE_TOLERANCE = 0.03f;
+
+  private final String[] joints;
+  private final int[] times;          // keyframe times in milliseconds
+  private final float[] positions;    // keyframe x joint positions, NaN if a joint is not set
+  private final int[] safePoints;
+
+  private MotionData(String[] joints, int[] times, float[] positions) {
+    this.joints = joints;
+    this.times = times;
+    this.positions = positions;
+    this.safePoints = findSafePoints();
+  }
+
+  // parse the text of a .motion file:
+  // #WEBOTS_MOTION,V1.0,joint1,joint2,...
+  // mm:ss:mmm,poseName,position1,position2,... ('*' for a joint that is not set)
+  public static MotionData parse(String text) throws IOException {
+    String[] lines = text.split("\r?\n");
+    if (lines.length < 2 || ! lines[0].startsWith("#WEBOTS_MOTION"))
+      throw new IOException("not a Webots motion file");
+
+    String[] header = lines[0].split(",");
+    String[] joints = new String[header.length - 2];
+    System.arraycopy(header, 2, joints, 0, joints.length);
+
+    ArrayList<String> frames = new ArrayList<>();
+    for (int i = 1; i < lines.length; i++)
+      if (! lines[i].trim().isEmpty())
+        frames.add(lines[i]);
+
+    int[] times = new int[frames.size()];
+    float[] positions = new float[frames.size() * joints.length];
+    for (int f = 0; f < times.length; f++) {
+      String[] tokens = frames.get(f).split(",");
+      if (tokens.length != joints.length + 2)
+        throw new IOException("wrong number of values in keyframe " + (f + 1));
+      String[] time = tokens[0].split(":");
+      try {
+        times[f] = Integer.parseInt(time[0].trim()) * 60000 + Integer.parseInt(time[1]) * 1000 + Integer.parseInt(time[2]);
+        for (int j = 0; j < joints.length; j++) {
+          String value = tokens[j + 2].trim();
+          positions[f * joints.length + j] = value.equals("*") ? Float.NaN : Float.parseFloat(value);
+        }
+      }
+      catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+        throw new IOException("invalid keyframe " + (f + 1) + ": " + e.getMessage());
+      }
+    }
+    return new MotionData(joints, times, positions);
+  }
+
+  public static MotionData read(DataInputStream in) throws IOException {
+    if (in.readInt() != BINARY_VERSION)
+      throw new IOException("unsupported binary motion version");
+    String[] joints = new String[in.readInt()];
+    for (int j = 0; j < joints.length; j++)
+      joints[j] = in.readUTF();
+    int[] times = new int[in.readInt()];
+    for (int f = 0; f < times.length; f++)
+      times[f] = in.readInt();
+    float[] positions = new float[times.length * joints.length];
+    for (int i = 0; i < positions.length; i++)
+      positions[i] = in.readFloat();
+    return new MotionData(joints, times, positions);
+  }
+
+  public void write(DataOutputStream out) throws IOException {
+    out.writeInt(BINARY_VERSION);
+    out.writeInt(joints.length);
+    for (String joint : joints)
+      out.writeUTF(joint);
+    out.writeInt(times.length);
+    for (int time : times)
+      out.writeInt(time);
+    for (float position : positions)
+      out.writeFloat(position);
+  }
+
+  // keyframes after the start and before the end where the robot is back in its
+  // initial pose (usually both feet on the ground): the motion can be stopped there
+  private int[] findSafePoints() {
+    int n = times.length;
+    int first = 0;
+    while (first < n && isInitialPose(first))
+      first++;
+    int last = n - 1;
+    while (last >= first && isInitialPose(last))
+      last--;
+
+    int count = 0;
+    int[] points = new int[n];
+    for (int f = first; f <= last; f++)
+      if (isInitialPose(f) && ! isInitialPose(f - 1))  // first keyframe of each stable phase
+        points[count++] = times[f];
+
+    int[] result = new int[count];
+    System.arraycopy(points, 0, result, 0, count);
+    return result;
+  }
+
+  private boolean isInitialPose(int frame) {
+    for (int j = 0; j < joints.length; j++) {
+      float p = positions[frame * joints.length + j];
+      float p0 = positions[j];
+      if (! Float.isNaN(p) && ! Float.isNaN(p0) && Math.abs(p - p0) > SAFE_POSE_TOLERANCE)
+        return false;
+    }
+    return true;
+  }
+
+  public String[] getJoints() {
+    return joints;
+  }
+
+  public int getFrameCount() {
+    return times.length;
+  }
+
+  public int getTime(int frame) {
+    return times[frame];
+  }
+
+  // joint position at a keyframe, NaN if the joint is not set
+  public float getPosition(int frame, int joint) {
+    return positions[frame * joints.length + joint];
+  }
+
+  public int getDuration() {
+    return times.length > 0 ? times[times.length - 1] : 0;
+  }
+
+  public int[] getSafePoints() {
+    return safePoints;
+  }
+}
@@ -0,0 +1,276 @@
+//-----------------------------------------------------------------------------
+//  File:         MotionEngine.java (to be used in a Webots java controllers)
+//  Date:         October 17, 2026
+//  Description:  Plays the keyframes of MotionLibrary by setting the joint motors
+//                at every step, instead of the Webots Motion player:
+//                - the keyframes are interpolated linearly, like Webots does
+//                - each motion has a playback speed, the keyframe times are divided by it
+//                - a motion starting while another one moves the joints fades in
+//                  from the current pose over BLEND_TIME, and starts at the keyframe
+//                  of its first MAX_PHASE_SKIP ms that is the closest to that pose
+//                - a stopped motion settles into its initial pose (both feet on the
+//                  ground) over SETTLE_TIME instead of freezing the joints
+//                - the still keyframes at the start and at the end are skipped
+//                update() must be called once before every simulation step, see
+//                KeyframePlatform. Only one motion plays at a time.
+//  Project:      Robotstadium, the online robot soccer competition
+//-----------------------------------------------------------------------------
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+public class MotionEngine {
+
+  private static final int BLEND_TIME = 200;              // ms, fade from the current pose into a motion
+  private static final int SETTLE_TIME = 300;             // ms, fade from the current pose into the initial pose
+  private static final int MAX_PHASE_SKIP = 320;          // ms, the odometry counts the skipped keyframes as played
+  private static final float STILL_TOLERANCE = 0.01f;     // rad, keyframes closer than this do not move the robot
+
+  private final Platform platform;
+  private final HashMap<String, KeyframeMotion> motions = new HashMap<>();
+  private final HashMap<String, Integer> jointIndex = new HashMap<>();
+  private Platform.Motor[] motors = new Platform.Motor[0];
+  private double[] pose = new double[0];  // last commanded joint positions, NaN if never set
+  private double[] from = new double[0];  // pose at the start of the current fade
+
+  private KeyframeMotion current;  // motion moving the joints, or null
+  private boolean settling;        // current was stopped: fading into its initial pose
+  private int fadeTime, fadeDuration;
+  private double defaultSpeed = 1.0;
+
+  public MotionEngine(Platform platform) {
+    this.platform = platform;
+  }
+
+  // playback speed of the motions created from now on, 1.0 plays the files as they are
+  public void setDefaultSpeed(double speed) {
+    defaultSpeed = speed;
+  }
+
+  // the motion of a MotionLibrary file, created on first use
+  // an invalid motion is returned if the file cannot be read
+  public KeyframeMotion getMotion(String name) {
+    KeyframeMotion motion = motions.get(name);
+    if (motion == null) {
+      motion = new KeyframeMotion(name, MotionLibrary.getData(name));
+      motion.setSpeed(defaultSpeed);
+      motions.put(name, motion);
+    }
+    return motion;
+  }
+
+  // move the joints for the next step of ms milliseconds
+  public void update(int ms) {
+    if (current == null)
+      return;
+
+    fadeTime += ms;
+    double fade = fadeDuration > 0 ? smooth(Math.min(1.0, (double)fadeTime / fadeDuration)) : 1.0;
+    KeyframeMotion motion = current;
+    if (settling) {
+      for (int j = 0; j < motion.index.length; j++)
+        set(motion.index[j], motion.data.getPosition(0, j), fade);
+      if (fade >= 1.0)
+        current = null;
+      return;
+    }
+
+    motion.advance(ms);
+    int f = motion.frame;
+    MotionData data = motion.data;
+    double t = 0.0;
+    if (f + 1 < data.getFrameCount()) {
+      int t0 = data.getTime(f), t1 = data.getTime(f + 1);
+      t = t1 > t0 ? Math.min(1.0, (motion.time - t0) / (t1 - t0)) : 1.0;
+    }
+    for (int j = 0; j < motion.index.length; j++) {
+      float p0 = data.getPosition(f, j);
+      float p1 = f + 1 < data.getFrameCount() ? data.getPosition(f + 1, j) : p0;
+      if (Float.isNaN(p1))
+        p1 = p0;
+      set(motion.index[j], Float.isNaN(p0) ? p1 : p0 + t * (p1 - p0), fade);
+    }
+    if (motion.over)
+      current = null;
+  }
+
+  // command a joint: position faded in from the pose at the start of the fade
+  private void set(int joint, double position, double fade) {
+    if (Double.isNaN(position))
+      return;
+    if (fade < 1.0 && ! Double.isNaN(from[joint]))
+      position = from[joint] + fade * (position - from[joint]);
+    pose[joint] = position;
+    motors[joint].setPosition(position);
+  }
+
+  // 0 to 1 with zero speed at both ends
+  private static double smooth(double x) {
+    return x * x * (3.0 - 2.0 * x);
+  }
+
+  private void startFade(int duration) {
+    System.arraycopy(pose, 0, from, 0, pose.length);
+    fadeTime = 0;
+    fadeDuration = duration;
+  }
+
+  private int joint(String name) {
+    Integer index = jointIndex.get(name);
+    if (index == null) {
+      index = motors.length;
+      jointIndex.put(name, index);
+      motors = Arrays.copyOf(motors, index + 1);
+      motors[index] = platform.getMotor(name);
+      pose = Arrays.copyOf(pose, index + 1);
+      pose[index] = Double.NaN;
+      from = Arrays.copyOf(from, index + 1);
+      from[index] = Double.NaN;
+    }
+    return index;
+  }
+
+  // a motion file played by the engine, times in milliseconds of the file
+  public final class KeyframeMotion implements Platform.Motion {
+    private final String name;
+    private final MotionData data;  // null if the file cannot be read
+    private final int[] index;      // engine joint of each joint of the file
+    private final int start, end;   // first and last keyframe times that move the robot
+    private double speed = 1.0;
+    private double time;            // current time in the file
+    private int frame;              // keyframe at or before time
+    private boolean over;
+
+    private KeyframeMotion(String name, MotionData data) {
+      this.name = name;
+      this.data = data;
+      if (data == null) {
+        index = new int[0];
+        start = end = 0;
+        return;
+      }
+      String[] joints = data.getJoints();
+      index = new int[joints.length];
+      for (int j = 0; j < joints.length; j++)
+        index[j] = joint(joints[j]);
+
+      int n = data.getFrameCount(), first = 0, last = n - 1;
+      while (first + 1 < n && isStill(first + 1, 0))
+        first++;
+      while (last > first && isStill(last - 1, n - 1))
+        last--;
+      start = data.getTime(first);
+      end = data.getTime(last);
+    }
+
+    private boolean isStill(int frame, int reference) {
+      for (int j = 0; j < index.length; j++) {
+        float p = data.getPosition(frame, j), q = data.getPosition(reference, j);
+        if (! Float.isNaN(p) && ! Float.isNaN(q) && Math.abs(p - q) > STILL_TOLERANCE)
+          return false;
+      }
+      return true;
+    }
+
+    // playback speed, e.g. 1.2 plays the motion 20% faster
+    public void setSpeed(double speed) {
+      this.speed = speed;
+    }
+
+    public double getSpeed() {
+      return speed;
+    }
+
+    @Override public String getName() {
+      return name;
+    }
+
+    @Override public boolean isValid() {
+      return data != null && data.getFrameCount() > 0;
+    }
+
+    // start from the current time, or from the keyframe closest to the pose of
+    // the robot when the motion was rewound, the joints fade in from that pose
+    @Override public void play() {
+      if (! isValid())
+        return;
+      over = false;
+      if (time <= start) {
+        time = closestTime();
+        seek();
+      }
+      startFade(BLEND_TIME);
+      current = this;
+      settling = false;
+    }
+
+    // fade into the initial pose, see SETTLE_TIME
+    @Override public void stop() {
+      if (current != this || settling)
+        return;
+      if (over) {
+        current = null;
+        return;
+      }
+      settling = true;
+      startFade(SETTLE_TIME);
+    }
+
+    @Override public boolean isOver() {
+      return over;
+    }
+
+    @Override public int getTime() {
+      return (int)time;
+    }
+
+    @Override public void setTime(int time) {
+      this.time = time;
+      over = false;
+      if (data != null)
+        seek();
+    }
+
+    @Override public int getDuration() {
+      return data == null ? 0 : data.getDuration();
+    }
+
+    // time of the keyframe closest to the current pose, at most MAX_PHASE_SKIP after the start
+    private int closestTime() {
+      int best = start;
+      double bestDistance = Double.POSITIVE_INFINITY;
+      for (int f = 0; f < data.getFrameCount() && data.getTime(f) <= start + MAX_PHASE_SKIP; f++) {
+        if (data.getTime(f) < start)
+          continue;
+        double distance = 0.0;
+        for (int j = 0; j < index.length; j++) {
+          double p = data.getPosition(f, j), q = pose[index[j]];
+          if (! Double.isNaN(p) && ! Double.isNaN(q))
+            distance += (p - q) * (p - q);
+        }
+        if (distance < bestDistance - STILL_TOLERANCE * STILL_TOLERANCE) {  // the earliest of close keyframes
+          bestDistance = distance;
+          best = data.getTime(f);
+        }
+      }
+      return best;
+    }
+
+    private void advance(int ms) {
+      time += ms * speed;
+      if (time >= end) {
+        time = data.getDuration();  // the still keyframes at the end are skipped
+        over = true;
+      }
+      seek();
+    }
+
+    private void seek() {
+      int n = data.getFrameCount();
+      if (frame >= n || data.getTime(frame) > time)
+        frame = 0;
+      while (frame + 1 < n && data.getTime(frame + 1) <= time)
+        frame++;
+    }
+  }
+}
@@ -0,0 +1,124 @@
+//-----------------------------------------------------------------------------
+//  File:         MotionLibrary.java (to be used in a Webots java controllers)
+//  Date:         October 17, 2026
+//  Description:  Shared data about the motion files: keyframes, safe points
+//                and displacements. The motions themselves are loaded once per
+//                controller, on first use, by Platform.getMotion().
+//                The parsed keyframes (MotionData) are cached on disk in binary
+//                form, keyed by the CRC32 of the .motion file, and shared by all
+//                the controllers running on the same computer.
+//  Project:      Robotstadium, the online robot soccer competition
+//-----------------------------------------------------------------------------
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.zip.CRC32;
+
+public class MotionLibrary {
+
+  public static final String MOTIONS_DIR = "../../motions/";
+  public static final File CACHE_DIR = new File(System.getProperty("java.io.tmpdir"), "nao_motion_cache");
+
+  // displacement of the robot at the end of each motion, in the robot frame at the start:
+  // dx forwards (m), dy to the left (m), dtheta counter-clockwise (rad)
+  // the turns were measured in the simulator, the translations are approximate
+  private static final Object[][] DISPLACEMENTS = {
+    { "Forwards",      new double[] {  0.13,  0.0,   0.0   } },
+    { "Forwards50",    new double[] {  0.50,  0.0,   0.0   } },
+    { "Backwards",     new double[] { -0.10,  0.0,   0.0   } },
+    { "SideStepLeft",  new double[] {  0.0,   0.05,  0.0   } },
+    { "SideStepRight", new double[] {  0.0,  -0.05,  0.0   } },
+    { "TurnLeft40",    new double[] {  0.0,   0.0,   0.693 } },  // 39.7 degrees
+    { "TurnRight40",   new double[] {  0.0,   0.0,  -0.693 } },
+    { "TurnLeft60",    new double[] {  0.0,   0.0,   1.033 } },  // 59.2 degrees
+    { "TurnRight60",   new double[] {  0.0,   0.0,  -1.033 } },
+    { "TurnLeft180",   new double[] {  0.0,   0.0,   2.855 } }   // 163.6 degrees
+  };
+  private static final double[] NO_DISPLACEMENT = { 0.0, 0.0, 0.0 };
+
+  private static final HashMap<String, MotionData> data = new HashMap<>();
+
+  private MotionLibrary() {
+  }
+
+  // true if MOTIONS_DIR has a file for this motion
+  public static boolean exists(String name) {
+    return new File(MOTIONS_DIR + name + ".motion").isFile();
+  }
+
+  // the parsed keyframes of a motion file, or null if the file cannot be read
+  // synchronized: the players of MatchRunner share the library
+  public static synchronized MotionData getData(String name) {
+    if (data.containsKey(name))
+      return data.get(name);
+
+    MotionData motionData = null;
+    try {
+      motionData = load(new File(MOTIONS_DIR + name + ".motion"));
+    }
+    catch (IOException e) {
+      System.out.println("MotionLibrary: cannot read motion " + name + ": " + e.getMessage());
+    }
+    data.put(name, motionData);
+    return motionData;
+  }
+
+  // {dx, dy, dtheta} of a complete motion, see DISPLACEMENTS
+  // motions that do not move the robot (e.g. "Shoot") return zeros
+  public static double[] getDisplacement(String name) {
+    for (Object[] entry : DISPLACEMENTS)
+      if (entry[0].equals(name))
+        return (double[])entry[1];
+    return NO_DISPLACEMENT;
+  }
+
+  // safe points of a motion, see MotionData.getSafePoints()
+  public static int[] getSafePoints(String name) {
+    MotionData motionData = getData(name);
+    return motionData == null ? null : motionData.getSafePoints();
+  }
+
+  // parse a motion file, or read it from the cache if it was already parsed
+  public static MotionData load(File file) throws IOException {
+    byte[] bytes = Files.readAllBytes(file.toPath());
+    CRC32 crc = new CRC32();
+    crc.update(bytes);
+    String baseName = file.getName().replace(".motion", "");
+    File cached = new File(CACHE_DIR, baseName + "-" + Long.toHexString(crc.getValue()) + ".bin");
+
+    if (cached.isFile()) {
+      try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cached)))) {
+        return MotionData.read(in);
+      }
+      catch (IOException e) {
+        System.out.println("MotionLibrary: ignoring invalid cache file " + cached + ": " + e.getMessage());
+      }
+    }
+
+    MotionData motionData = MotionData.parse(new String(bytes, StandardCharsets.US_ASCII));
+
+    // write to a temporary file first: other controllers may read the cache at the same time
+    try {
+      CACHE_DIR.mkdirs();
+      File temp = File.createTempFile(baseName, ".tmp", CACHE_DIR);
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+        motionData.write(out);
+      }
+      Files.move(temp.toPath(), cached.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    catch (IOException e) {
+      System.out.println("MotionLibrary: cannot write cache file " + cached + ": " + e.getMessage());
+    }
+    return motionData;
+  }
+}
@@ -0,0 +1,220 @@
+//-----------------------------------------------------------------------------
+//  File:         MotionPlanner.java (to be used in a Webots java controllers)
+//  Date:         October 17, 2026
+//  Description:  Shortest sequence of walking motions to a shooting pose behind
+//                the ball. A* search over the robot poses reached by chaining the
+//                motions of MotionLibrary, the cost of a motion is its duration and
+//                it moves the robot by its displacement. The heuristic is weighted
+//                to expand fewer poses, and the search is bounded by
+//                MAX_EXPANSIONS: when it is reached the plan leads to the closest
+//                pose found. The paths that walk through the ball are rejected.
+//                Robot frame at the start: x forwards, y to the left, theta
+//                counter-clockwise.
+//  Project:      Robotstadium, the online robot soccer competition
+//-----------------------------------------------------------------------------
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+
+public class MotionPlanner {
+
+  // motions that may be planned, see MotionLibrary.DISPLACEMENTS
+  public static final String[] MOTIONS = {
+    "Forwards", "Forwards50", "Backwards", "SideStepLeft", "SideStepRight",
+    "TurnLeft40", "TurnRight40", "TurnLeft60", "TurnRight60"
+  };
+
+  // shooting pose: ball at shootDistance in front of the robot, the robot facing the shot direction
+  // (defaults, see the constructor)
+  public static final double SHOOT_DISTANCE = 0.15;      // m
+  public static final double DISTANCE_TOLERANCE = 0.05;  // m, forwards
+  public static final double LATERAL_TOLERANCE = 0.04;   // m, a side step is 0.05
+  public static final double HEADING_TOLERANCE = 0.3;    // rad, a TurnLeft40 is 0.69
+
+  private static final double BALL_CLEARANCE = 0.1;      // m, closest the robot may walk past the ball
+  private static final double GRID = 0.05;               // m, resolution of the visited poses
+  private static final double ANGLE_GRID = 0.1;          // rad
+  private static final int MAX_EXPANSIONS = 4000;
+  private static final double WEIGHT = 1.5;              // weighted A*: plans at most 1.5 times longer than the best one
+  private static final double MAX_PLAN_TIME = 180.0;     // s
+  private static final double DEFAULT_DURATION = 5.0;    // s, when a motion file cannot be read
+
+  private final double[] durations = new double[MOTIONS.length];  // s
+  private final double[][] displacements = new double[MOTIONS.length][];
+  private final double maxSpeed, maxTurnSpeed;  // fastest motions, for the A* heuristic
+  private final double shootDistance, headingTolerance;
+
+  // goal of the current search
+  private double ballX, ballY, heading;
+
+  // last plan()
+  private final ArrayList<String> plan = new ArrayList<>();
+  private double planTime;
+  private boolean complete;
+  private int expansions;
+
+  public MotionPlanner() {
+    this(SHOOT_DISTANCE, HEADING_TOLERANCE);
+  }
+
+  public MotionPlanner(double shootDistance, double headingTolerance) {
+    this.shootDistance = shootDistance;
+    this.headingTolerance = headingTolerance;
+    double speed = 0.0, turnSpeed = 0.0;
+    for (int i = 0; i < MOTIONS.length; i++) {
+      MotionData data = MotionLibrary.getData(MOTIONS[i]);
+      durations[i] = data == null ? DEFAULT_DURATION : data.getDuration() / 1000.0;
+      displacements[i] = MotionLibrary.getDisplacement(MOTIONS[i]);
+      speed = Math.max(speed, Math.hypot(displacements[i][0], displacements[i][1]) / durations[i]);
+      turnSpeed = Math.max(turnSpeed, Math.abs(displacements[i][2]) / durations[i]);
+    }
+    maxSpeed = speed;
+    maxTurnSpeed = turnSpeed;
+  }
+
+  // one pose reached by a sequence of motions
+  private static final class Node implements Comparable<Node> {
+    final double x, y, theta;
+    final double time, estimate;  // time to get there, plus lower bound of the time left
+    final Node parent;
+    final int motion;             // index in MOTIONS of the last motion, -1 for the start
+
+    Node(double x, double y, double theta, double time, double estimate, Node parent, int motion) {
+      this.x = x;
+      this.y = y;
+      this.theta = theta;
+      this.time = time;
+      this.estimate = estimate;
+      this.parent = parent;
+      this.motion = motion;
+    }
+
+    @Override public int compareTo(Node other) {
+      return Double.compare(estimate, other.estimate);
+    }
+  }
+
+  // true if the robot can shoot now: the ball at (x, y) in the robot frame and
+  // the shot direction (rad, counter-clockwise from the front)
+  public boolean isShootingPose(double x, double y, double shotDirection) {
+    return Math.abs(x - shootDistance) <= DISTANCE_TOLERANCE && Math.abs(y) <= LATERAL_TOLERANCE
+      && Math.abs(Localization.normalizeAngle(shotDirection)) <= headingTolerance;
+  }
+
+  // plan the motions to a shooting pose, see getPlanMotion()
+  // (x, y): ball in the robot frame (m), shotDirection: direction of the shot (rad, counter-clockwise)
+  // return false if the search stopped before reaching a shooting pose, the plan then leads
+  // to the pose that was the closest to one
+  public boolean plan(double x, double y, double shotDirection) {
+    ballX = x;
+    ballY = y;
+    heading = Localization.normalizeAngle(shotDirection);
+    plan.clear();
+    planTime = 0.0;
+    expansions = 0;
+
+    PriorityQueue<Node> open = new PriorityQueue<>();
+    HashSet<Long> closed = new HashSet<>();
+    Node start = new Node(0.0, 0.0, 0.0, 0.0, WEIGHT * heuristic(0.0, 0.0, 0.0), null, -1);
+    open.add(start);
+    Node best = start, goal = null;
+    double bestRemaining = start.estimate;
+
+    while (! open.isEmpty() && expansions < MAX_EXPANSIONS) {
+      Node node = open.poll();
+      if (! closed.add(key(node)))
+        continue;
+      if (isGoal(node)) {
+        goal = node;
+        break;
+      }
+      expansions++;
+      double remaining = node.estimate - node.time;
+      if (remaining < bestRemaining) {
+        bestRemaining = remaining;
+        best = node;
+      }
+
+      double c = Math.cos(node.theta), s = Math.sin(node.theta);
+      for (int i = 0; i < MOTIONS.length; i++) {
+        double[] d = displacements[i];
+        double time = node.time + durations[i];
+        if (time > MAX_PLAN_TIME)
+          continue;
+        double nx = node.x + c * d[0] - s * d[1];
+        double ny = node.y + s * d[0] + c * d[1];
+        double ntheta = Localization.normalizeAngle(node.theta + d[2]);
+        if (throughBall(node.x, node.y, nx, ny))
+          continue;
+        Node next = new Node(nx, ny, ntheta, time, time + WEIGHT * heuristic(nx, ny, ntheta), node, i);
+        if (! closed.contains(key(next)))
+          open.add(next);
+      }
+    }
+
+    complete = goal != null;
+    for (Node node = complete ? goal : best; node.motion >= 0; node = node.parent) {
+      plan.add(0, MOTIONS[node.motion]);
+      planTime += durations[node.motion];
+    }
+    return complete;
+  }
+
+  private boolean isGoal(Node node) {
+    double c = Math.cos(node.theta), s = Math.sin(node.theta);
+    double ex = ballX - node.x, ey = ballY - node.y;
+    return isShootingPose(c * ex + s * ey, -s * ex + c * ey, heading - node.theta);
+  }
+
+  // lower bound of the time to a shooting pose: the position and the heading
+  // errors beyond the tolerances, at the speed of the fastest motions
+  private double heuristic(double x, double y, double theta) {
+    // within the heading tolerance the shooting position moves by up to shootDistance * headingTolerance
+    double slack = Math.hypot(DISTANCE_TOLERANCE, LATERAL_TOLERANCE) + shootDistance * headingTolerance;
+    double px = ballX - shootDistance * Math.cos(heading), py = ballY - shootDistance * Math.sin(heading);
+    double distance = Math.max(0.0, Math.hypot(px - x, py - y) - slack);
+    double turn = Math.max(0.0, Math.abs(Localization.normalizeAngle(heading - theta)) - headingTolerance);
+    return Math.max(distance / maxSpeed, turn / maxTurnSpeed);
+  }
+
+  // the straight path from (x0, y0) to (x1, y1) gets closer than BALL_CLEARANCE
+  // to the ball, and closer than at its start: moving away is always allowed
+  private boolean throughBall(double x0, double y0, double x1, double y1) {
+    double dx = x1 - x0, dy = y1 - y0;
+    double length2 = dx * dx + dy * dy;
+    if (length2 == 0.0)
+      return false;
+    double t = Math.max(0.0, Math.min(1.0, ((ballX - x0) * dx + (ballY - y0) * dy) / length2));
+    double closest = Math.hypot(x0 + t * dx - ballX, y0 + t * dy - ballY);
+    return t > 0.0 && closest < BALL_CLEARANCE;
+  }
+
+  private static long key(Node node) {
+    long i = Math.round(node.x / GRID), j = Math.round(node.y / GRID), k = Math.round(node.theta / ANGLE_GRID);
+    return (i & 0xfffff) | (j & 0xfffff) << 20 | (k & 0xfffff) << 40;
+  }
+
+  public int getPlanLength() {
+    return plan.size();
+  }
+
+  public String getPlanMotion(int i) {
+    return plan.get(i);
+  }
+
+  // seconds needed to play the whole plan
+  public double getPlanTime() {
+    return planTime;
+  }
+
+  // true if the last plan reaches a shooting pose
+  public boolean isComplete() {
+    return complete;
+  }
+
+  // poses expanded by the last search
+  public int getExpansions() {
+    return expansions;
+  }
+}
@@ -0,0 +1,172 @@
+//-----------------------------------------------------------------------------
+//  File:         MotionScheduler.java (to be used in a Webots java controllers)
+//  Date:         October 17, 2026
+//  Description:  Plays, queues and pre-empts Platform.Motion objects
+//                update() must be called after every simulation step. A motion
+//                is only interrupted at one of its safe points (its start, its end
+//                and the MotionLibrary safe points) unless abort() is called.
+//  Project:      Robotstadium, the online robot soccer competition
+//-----------------------------------------------------------------------------
+
+import java.util.IdentityHashMap;
+
+public class MotionScheduler {
+
+  private static final int QUEUE_SIZE = 8;
+
+  private final int timeStep;
+  private final IdentityHashMap<Platform.Motion, int[]> safePoints = new IdentityHashMap<>();
+  private final Platform.Motion[] queue = new Platform.Motion[QUEUE_SIZE];
+  private int queueHead, queueLength;
+  private Platform.Motion current;
+  private int previousTime;            // time of current at the previous update(), -1 before
+  private boolean stopRequested;       // stop current at its next safe point
+  private Platform.Motion lastMotion;  // last motion that was started
+  private double lastProgress;         // fraction of lastMotion that was played
+  private int startCount;              // number of motions started so far
+
+  public MotionScheduler(int timeStep) {
+    this.timeStep = timeStep;
+  }
+
+  // times (in milliseconds, increasing) where the motion can be interrupted
+  // without losing balance, typically when both feet are on the ground
+  // this replaces the safe points found by MotionLibrary
+  public void setSafePoints(Platform.Motion motion, int... times) {
+    safePoints.put(motion, times.clone());
+  }
+
+  // play a motion as soon as possible: the current motion is stopped at its next
+  // safe point and the queued motions are dropped
+  public void play(Platform.Motion motion) {
+    clearQueue();
+    enqueue(motion);
+    if (current != null)
+      stopRequested = true;
+    else
+      startNext();
+  }
+
+  // play a motion after the current and queued ones
+  public void queue(Platform.Motion motion) {
+    enqueue(motion);
+    if (current == null)
+      startNext();
+  }
+
+  // stop the current motion at its next safe point and drop the queued motions
+  public void stop() {
+    clearQueue();
+    if (current != null)
+      stopRequested = true;
+  }
+
+  // stop the current motion immediately, e.g. after a fall
+  public void abort() {
+    clearQueue();
+    if (current != null)
+      finish();
+  }
+
+  // to be called after every simulation step
+  public void update() {
+    if (current != null) {
+      int time = current.getTime();
+      if (current.isOver())
+        finish();
+      else if (stopRequested && isAtSafePoint(current, time))
+        finish();
+      else
+        previousTime = time;
+    }
+    if (current == null)
+      startNext();
+  }
+
+  public Platform.Motion getCurrent() {
+    return current;
+  }
+
+  public boolean isIdle() {
+    return current == null && queueLength == 0;
+  }
+
+  // fraction of the current motion that has been played, 0.0 if idle
+  public double getProgress() {
+    return current == null ? 0.0 : progress(current);
+  }
+
+  // the last motion that was started and the fraction of it that was played
+  public Platform.Motion getLastMotion() {
+    return lastMotion;
+  }
+
+  public double getLastProgress() {
+    return current != null && current == lastMotion ? progress(current) : lastProgress;
+  }
+
+  // incremented each time a motion starts, also when the same motion is played again
+  public int getStartCount() {
+    return startCount;
+  }
+
+  private static double progress(Platform.Motion motion) {
+    int duration = motion.getDuration();
+    return duration > 0 ? Math.min(1.0, (double)motion.getTime() / duration) : 1.0;
+  }
+
+  // a safe point was passed during the last step: the motion time may advance
+  // by more or less than timeStep (see MotionEngine.KeyframeMotion.setSpeed())
+  private boolean isAtSafePoint(Platform.Motion motion, int time) {
+    if (time < timeStep)
+      return true;  // not really started yet
+    int[] times = safePoints.get(motion);
+    if (times == null)
+      times = MotionLibrary.getSafePoints(motion.getName());
+    if (times != null)
+      for (int t : times)
+        if (time >= t && previousTime < t)
+          return true;
+    return false;
+  }
+
+  private void finish() {
+    lastProgress = current.isOver() ? 1.0 : progress(current);
+    current.stop();
+    current = null;
+    stopRequested = false;
+  }
+
+  private void startNext() {
+    if (queueLength == 0)
+      return;
+    current = queue[queueHead];
+    queue[queueHead] = null;
+    queueHead = (queueHead + 1) % QUEUE_SIZE;
+    queueLength--;
+    stopRequested = false;
+    current.setTime(0);
+    current.play();
+    previousTime = -1;
+    lastMotion = current;
+    lastProgress = 0.0;
+    startCount++;
+  }
+
+  private void enqueue(Platform.Motion motion) {
+    if (queueLength == QUEUE_SIZE) {
+      System.out.println("MotionScheduler: queue full, dropping motion");
+      return;
+    }
+    queue[(queueHead + queueLength) % QUEUE_SIZE] = motion;
+    queueLength++;
+  }
+
+  private void clearQueue() {
+    while (queueLength > 0) {
+      queue[queueHead] = null;
+      queueHead = (queueHead + 1) % QUEUE_SIZE;
+      queueLength--;
+    }
+  }
+}
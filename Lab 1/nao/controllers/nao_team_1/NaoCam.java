@@ -8,8 +8,6 @@
 //-----------------------------------------------------------------------------
 
 import java.lang.Math;
-import com.cyberbotics.webots.controller.Camera;
-import com.cyberbotics.webots.controller.Robot;
 
 public class NaoCam {
 
@@ -17,27 +15,46 @@ public class NaoCam {
   public static final double OFFSET_ANGLE = 0.6981;  // 40 degrees between cameras axes
   public enum Goal { SKY_BLUE, YELLOW, UNKNOWN_COLOR };
 
+  // color classes found by processImage()
+  public static final int BALL = 0;
+  public static final int SKY_BLUE_GOAL = 1;
+  public static final int YELLOW_GOAL = 2;
+  public static final int FIELD = 3;
+  public static final int LINE = 4;
+  public static final int NUM_CLASSES = 5;
+  public static final int NO_CLASS = -1;
+
+  // color calibration file, relative to the controller directory
+  public static final String COLOR_TABLE_FILE = "color_table.txt";
+
   boolean topSelected = true;
-  Camera topCamera;
-  Camera bottomCamera;
+  Platform.Camera topCamera;
+  Platform.Camera bottomCamera;
   int timeStep;
+  private Platform robot;
   private Goal goalColor;
   private double fov;
   private int width, height;
-  private int[] image;
-  private double blobDirectionAngle = UNKNOWN;
-  private double blobElevationAngle = UNKNOWN;
-  private double ballDirectionAngle = UNKNOWN;
-  private double ballElevationAngle = UNKNOWN;
-  private double goalDirectionAngle = UNKNOWN;
-  private double goalElevationAngle = UNKNOWN;
-
-  public NaoCam(Robot robot, int timeStep) {
+  private final ImageAnalyzer analyzer;
+  private VisionWorker worker;  // null unless the asynchronous mode is enabled
+  private Perception perception = new Perception();  // the perception returned by the getters
+  private double lastHeadYaw, lastHeadPitch;
+
+  // frame change detection: the camera refreshes its image every timeStep ms
+  // after it was enabled, in between getImage() returns the same image again
+  private double topEnableTime, bottomEnableTime;  // simulation time when each camera was enabled
+  private long lastFrame = -1;  // index of the last analysed image since the camera was enabled
+  private boolean newFrame;
+  private int processedFrames, skippedFrames;
+
+  public NaoCam(Platform robot, int timeStep) {
+    this.robot = robot;
     topCamera = robot.getCamera("CameraTop");
     bottomCamera = robot.getCamera("CameraBottom");
     
     this.timeStep = timeStep;
     goalColor = Goal.UNKNOWN_COLOR;
+    analyzer = new ImageAnalyzer(ColorTable.load(COLOR_TABLE_FILE));
    
    // start with top camera
    selectTop();
@@ -47,65 +64,191 @@ public class NaoCam {
     this.goalColor = goal;
   }
 
-  // find a blob whose rgb components match
-  private void findColorBlob(int R, int G, int B, int threshold) {
-
-    int x = 0, y = 0;
-    int npixels = 0;
+  // reload the color calibration, e.g. after changing the stadium lighting
+  public void loadColorTable(String fileName) {
+    analyzer.setColorTable(ColorTable.load(fileName));
+  }
 
-    for (int i = 0; i < image.length; i++) {
-      int r = Camera.pixelGetRed(image[i]);
-      int g = Camera.pixelGetGreen(image[i]);
-      int b = Camera.pixelGetBlue(image[i]);
+  // enable or disable the ball tracking window
+  public void setTracking(boolean tracking) {
+    analyzer.setTracking(tracking);
+  }
 
-      if (Math.abs(r - R) + Math.abs(g - G) + Math.abs(b - B) < threshold) {
-        x += i % width;
-        y += i / width;
-        npixels++;
+  // in asynchronous mode the images are analysed by a VisionWorker thread:
+  // processImage() only hands the image over and the getters return the
+  // latest completed perception, which may belong to a previous image
+  public void setAsynchronous(boolean asynchronous) {
+    if (asynchronous && worker == null) {
+      worker = new VisionWorker(analyzer);
+      worker.start();
+    }
+    else if (! asynchronous && worker != null) {
+      worker.shutdown();
+      try {
+        worker.join();
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
       }
+      Perception last = new Perception();
+      last.copyFrom(worker.latest());
+      perception = last;
+      worker = null;
     }
+  }
 
-    if (npixels > 0) {
-      blobDirectionAngle = ((double)x / npixels / width - 0.5) * fov;
-      blobElevationAngle = -((double)y / npixels / height - 0.5) * fov;
-    }
-    else {
-      blobDirectionAngle = UNKNOWN;
-      blobElevationAngle = UNKNOWN;
-    }
+  public boolean isAsynchronous() {
+    return worker != null;
+  }
+
+  // true if the last perception only searched the ball tracking window:
+  // in this case only the BALL class statistics are available
+  public boolean isWindowed() {
+    return perception.windowed;
+  }
+
+  // simulation time (seconds) of the image the perception was computed from
+  public double getPerceptionTime() {
+    return perception.time;
+  }
+
+  // head position and camera offset when the perceived image was taken
+  public double getPerceptionHeadYaw() {
+    return perception.headYaw;
+  }
+
+  public double getPerceptionHeadPitch() {
+    return perception.headPitch;
+  }
+
+  public double getPerceptionOffsetAngle() {
+    return perception.topCamera ? 0.0 : OFFSET_ANGLE;
   }
 
-  // analyse image and find blobs
+  // horizontal field of view of the selected camera (radians)
+  public double getFov() {
+    return fov;
+  }
+
+  public boolean isTopSelected() {
+    return topSelected;
+  }
+
+  // true if the last processImage() call analysed a new image
+  public boolean isNewFrame() {
+    return newFrame;
+  }
+
+  // number of processImage() calls that analysed an image and that were skipped
+  public int getProcessedFrames() {
+    return processedFrames;
+  }
+
+  public int getSkippedFrames() {
+    return skippedFrames;
+  }
+
+  // analyse image without head motion compensation of the tracking window
   public void processImage() {
+    processImage(lastHeadYaw, lastHeadPitch);
+  }
 
-    if (topSelected)
-      image = topCamera.getImage();
+  // analyse the image of the selected camera, see ImageAnalyzer.analyze()
+  // nothing is done if the camera has not refreshed its image since the last call
+  public void processImage(double headYaw, double headPitch) {
+    double time = robot.getTime();
+    double enableTime = topSelected ? topEnableTime : bottomEnableTime;
+    long frame = Math.round((time - enableTime) * 1000.0) / timeStep;
+    newFrame = frame != lastFrame;
+    if (! newFrame) {
+      skippedFrames++;
+      if (worker != null)
+        perception = worker.latest();
+      return;
+    }
+    lastFrame = frame;
+    processedFrames++;
+
+    int[] image = topSelected ? topCamera.getImage() : bottomCamera.getImage();
+
+    if (worker != null) {
+      worker.submit(image, width, height, fov, topSelected, headYaw, headPitch, time);
+      perception = worker.latest();
+    }
     else
-      image = bottomCamera.getImage();
-    
-    // find orange ball
-    findColorBlob(240, 140, 50, 60);
-    ballDirectionAngle = blobDirectionAngle;
-    ballElevationAngle = blobElevationAngle;
-    //System.out.println("camera: ball: dir: " + ballDirectionAngle + " elev: " + ballElevationAngle);
+      analyzer.analyze(image, width, height, fov, topSelected, headYaw, headPitch, time, perception);
+
+    lastHeadYaw = headYaw;
+    lastHeadPitch = headPitch;
+    //System.out.println("camera: ball: dir: " + perception.directionAngle[BALL] + " elev: " + perception.elevationAngle[BALL]);
+  }
+
+  // color class of the goal we attack and of the goal we defend
+  private int opponentGoalClass() {
+    switch (goalColor) {
+    case SKY_BLUE:
+      return SKY_BLUE_GOAL;
+    case YELLOW:
+      return YELLOW_GOAL;
+    default:
+      return NO_CLASS;
+    }
+  }
 
-    // find goal
+  private int ownGoalClass() {
     switch (goalColor) {
     case SKY_BLUE:
-      findColorBlob(30, 200, 200, 60);
-      break;
+      return YELLOW_GOAL;
     case YELLOW:
-      findColorBlob(140, 140, 15, 60);
-      break;
+      return SKY_BLUE_GOAL;
     default:
-      goalDirectionAngle = UNKNOWN;
+      return NO_CLASS;
     }
+  }
+
+  // biggest blob of a color class in the last processed image
+  // pixel coordinates are measured from the top left corner of the image
+  public int getBlobArea(int colorClass) {
+    return perception.blobArea[colorClass];
+  }
+
+  public double getCentroidX(int colorClass) {
+    return perception.blobArea[colorClass] > 0 ? perception.centroidX[colorClass] : UNKNOWN;
+  }
+
+  public double getCentroidY(int colorClass) {
+    return perception.blobArea[colorClass] > 0 ? perception.centroidY[colorClass] : UNKNOWN;
+  }
 
-    goalDirectionAngle = blobDirectionAngle;
-    //*  added goalElevationAngle *//
-    goalElevationAngle = blobElevationAngle;
+  // bounding box limits (inclusive), only meaningful if getBlobArea() > 0
+  public int getMinX(int colorClass) {
+    return perception.minX[colorClass];
+  }
+
+  public int getMaxX(int colorClass) {
+    return perception.maxX[colorClass];
+  }
+
+  public int getMinY(int colorClass) {
+    return perception.minY[colorClass];
+  }
+
+  public int getMaxY(int colorClass) {
+    return perception.maxY[colorClass];
+  }
+
+  // all the blobs of the last processed image, ranked by decreasing area
+  // (only consistent in synchronous mode)
+  public BlobExtractor getBlobs() {
+    return analyzer.getBlobs();
+  }
+
+  public double getDirectionAngle(int colorClass) {
+    return colorClass == NO_CLASS ? UNKNOWN : perception.directionAngle[colorClass];
+  }
 
-    //System.out.println("camera: goal: dir: " + goalDirectionAngle);
+  public double getElevationAngle(int colorClass) {
+    return colorClass == NO_CLASS ? UNKNOWN : perception.elevationAngle[colorClass];
   }
 
   // all direction and elevation angles are indicated in radians
@@ -114,24 +257,84 @@ public class NaoCam {
   // a positive direction is towards the right of the camera image
   // a positive elevation is towards the top of the camera image
   public double getBallDirectionAngle() {
-    return ballDirectionAngle;
+    return perception.directionAngle[BALL];
   }
 
   public double getBallElevationAngle() {
-    return ballElevationAngle;
+    return perception.elevationAngle[BALL];
   }
 
+  // the goal we attack
   public double getGoalDirectionAngle() {
-    return goalDirectionAngle;
+    return getDirectionAngle(opponentGoalClass());
   }
 
   public double getGoalElevationAngle() {
-    return goalElevationAngle;
+    return getElevationAngle(opponentGoalClass());
+  }
+
+  // the goal we defend
+  public double getOwnGoalDirectionAngle() {
+    return getDirectionAngle(ownGoalClass());
+  }
+
+  public double getOwnGoalElevationAngle() {
+    return getElevationAngle(ownGoalClass());
+  }
+
+  // elevation angle of the bottom of a blob, where a goal stands on the ground
+  // UNKNOWN if the blob reaches the bottom of the image (the bottom is not visible)
+  public double getBottomElevationAngle(int colorClass) {
+    if (colorClass == NO_CLASS || perception.blobArea[colorClass] == 0 || perception.maxY[colorClass] >= height - 1)
+      return UNKNOWN;
+    return -((perception.maxY[colorClass] + 1.0) / height - 0.5) * fov;
+  }
+
+  public double getGoalBottomElevationAngle() {
+    return getBottomElevationAngle(opponentGoalClass());
+  }
+
+  public double getOwnGoalBottomElevationAngle() {
+    return getBottomElevationAngle(ownGoalClass());
   }
   
+  // enable a camera unless it is already running
+  private void enable(Platform.Camera camera) {
+    if (camera.getSamplingPeriod() == timeStep)
+      return;
+    camera.enable(timeStep);
+    if (camera == topCamera)
+      topEnableTime = robot.getTime();
+    else
+      bottomEnableTime = robot.getTime();
+    // the frames count from the enable time: only restart the count of the selected
+    // camera, a camera prepared for a switch is counted when it is selected
+    if (camera == (topSelected ? topCamera : bottomCamera))
+      lastFrame = -1;
+  }
+
+  // start a camera ahead of a switch, while the selected one keeps working,
+  // so that it already has an image when selectTop() or selectBottom() is called
+  public void prepareTop() {
+    enable(topCamera);
+  }
+
+  public void prepareBottom() {
+    enable(bottomCamera);
+  }
+
+  // true if the top (or bottom) camera is running and has taken at least one image
+  public boolean hasImage(boolean top) {
+    Platform.Camera camera = top ? topCamera : bottomCamera;
+    double enableTime = top ? topEnableTime : bottomEnableTime;
+    return camera.getSamplingPeriod() == timeStep && (robot.getTime() - enableTime) * 1000.0 >= timeStep;
+  }
+
   public void selectTop() {
     bottomCamera.disable();
-    topCamera.enable(timeStep);
+    enable(topCamera);
+    if (! topSelected)
+      lastFrame = -1;
     fov = topCamera.getFov();
     width = topCamera.getWidth();
     height = topCamera.getHeight();
@@ -140,13 +343,15 @@ public class NaoCam {
 
   public void selectBottom() {
     topCamera.disable();
-    bottomCamera.enable(timeStep);
+    enable(bottomCamera);
+    if (topSelected)
+      lastFrame = -1;
     fov = bottomCamera.getFov();
     width = bottomCamera.getWidth();
     height = bottomCamera.getHeight();
     topSelected = false;
   }
-  
+
   public double getOffsetAngle() {
     if (topSelected)
       return 0.0;
@@ -0,0 +1,90 @@
+//-----------------------------------------------------------------------------
+//  File:         Parameters.java (to be used in a Webots java controllers)
+//  Date:         October 17, 2026
+//  Description:  Named values overriding the default thresholds of the players,
+//                e.g. "shootDistance=0.12,positioningGain=0.5", see MatchRunner.
+//                The players read them once, when they are created. A value that
+//                is not set returns the default given by the player.
+//                Batch parameters are for the players of a batch run: they log
+//                no telemetry and do not print their metrics when the JVM exits.
+//  Project:      Robotstadium, the online robot soccer competition
+//-----------------------------------------------------------------------------
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+public class Parameters {
+
+  private final TreeMap<String, Double> values = new TreeMap<>();
+  private final TreeSet<String> read = new TreeSet<>();  // names asked for by get()
+  private boolean batch;
+
+  public Parameters() {
+  }
+
+  // parse "name=value,name=value...", throws IllegalArgumentException if invalid
+  public static Parameters parse(String text) {
+    Parameters parameters = new Parameters();
+    for (String item : text.split(",")) {
+      if (item.trim().isEmpty())
+        continue;
+      String[] pair = item.split("=");
+      if (pair.length != 2)
+        throw new IllegalArgumentException("expected name=value: " + item);
+      try {
+        parameters.set(pair[0].trim(), Double.parseDouble(pair[1].trim()));
+      }
+      catch (NumberFormatException e) {
+        throw new IllegalArgumentException("invalid value: " + item);
+      }
+    }
+    return parameters;
+  }
+
+  // same values, nothing read yet
+  public Parameters copy() {
+    Parameters copy = new Parameters();
+    copy.values.putAll(values);
+    copy.batch = batch;
+    return copy;
+  }
+
+  public Parameters set(String name, double value) {
+    values.put(name, value);
+    return this;
+  }
+
+  public Parameters setBatch(boolean batch) {
+    this.batch = batch;
+    return this;
+  }
+
+  public boolean isBatch() {
+    return batch;
+  }
+
+  // the value of a parameter, or defaultValue if it is not set
+  public double get(String name, double defaultValue) {
+    read.add(name);
+    Double value = values.get(name);
+    return value == null ? defaultValue : value;
+  }
+
+  // names set but never read by get(), e.g. misspelled in a sweep
+  public TreeSet<String> getUnread() {
+    TreeSet<String> unread = new TreeSet<>(values.keySet());
+    unread.removeAll(read);
+    return unread;
+  }
+
+  @Override public String toString() {
+    StringBuilder text = new StringBuilder();
+    for (Map.Entry<String, Double> entry : values.entrySet()) {
+      if (text.length() > 0)
+        text.append(',');
+      text.append(entry.getKey()).append('=').append(entry.getValue());
+    }
+    return text.toString();
+  }
+}
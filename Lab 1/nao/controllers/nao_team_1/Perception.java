@@ -0,0 +1,52 @@
+//-----------------------------------------------------------------------------
+//  File:         Perception.java (to be used in a Webots java controllers)
+//  Date:         October 17, 2026
+//  Description:  Result of the analysis of one camera image by ImageAnalyzer:
+//                biggest blob of each color class and its angles, stamped with
+//                the simulation time and head position of the image
+//  Project:      Robotstadium, the online robot soccer competition
+//-----------------------------------------------------------------------------
+
+public class Perception {
+
+  // image the perception was computed from
+  double time = -1.0;  // simulation time in seconds, negative if no image was analysed yet
+  boolean topCamera = true;
+  double headYaw, headPitch;
+  boolean windowed;  // only the ball tracking window was searched
+
+  // biggest blob of each color class
+  final int[] blobArea = new int[NaoCam.NUM_CLASSES];
+  final double[] centroidX = new double[NaoCam.NUM_CLASSES];
+  final double[] centroidY = new double[NaoCam.NUM_CLASSES];
+  final int[] minX = new int[NaoCam.NUM_CLASSES];
+  final int[] maxX = new int[NaoCam.NUM_CLASSES];
+  final int[] minY = new int[NaoCam.NUM_CLASSES];
+  final int[] maxY = new int[NaoCam.NUM_CLASSES];
+  final double[] directionAngle = new double[NaoCam.NUM_CLASSES];
+  final double[] elevationAngle = new double[NaoCam.NUM_CLASSES];
+
+  public Perception() {
+    for (int c = 0; c < NaoCam.NUM_CLASSES; c++) {
+      directionAngle[c] = NaoCam.UNKNOWN;
+      elevationAngle[c] = NaoCam.UNKNOWN;
+    }
+  }
+
+  public void copyFrom(Perception other) {
+    time = other.time;
+    topCamera = other.topCamera;
+    headYaw = other.headYaw;
+    headPitch = other.headPitch;
+    windowed = other.windowed;
+    System.arraycopy(other.blobArea, 0, blobArea, 0, NaoCam.NUM_CLASSES);
+    System.arraycopy(other.centroidX, 0, centroidX, 0, NaoCam.NUM_CLASSES);
+    System.arraycopy(other.centroidY, 0, centroidY, 0, NaoCam.NUM_CLASSES);
+    System.arraycopy(other.minX, 0, minX, 0, NaoCam.NUM_CLASSES);
+    System.arraycopy(other.maxX, 0, maxX, 0, NaoCam.NUM_CLASSES);
+    System.arraycopy(other.minY, 0, minY, 0, NaoCam.NUM_CLASSES);
+    System.arraycopy(other.maxY, 0, maxY, 0, NaoCam.NUM_CLASSES);
+    System.arraycopy(other.directionAngle, 0, directionAngle, 0, NaoCam.NUM_CLASSES);
+    System.arraycopy(other.elevationAngle, 0, elevationAngle, 0, NaoCam.NUM_CLASSES);
+  }
+}
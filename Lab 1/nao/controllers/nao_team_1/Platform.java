@@ -0,0 +1,122 @@
+//-----------------------------------------------------------------------------
+//  File:         Platform.java (to be used in a Webots java controllers)
+//  Date:         October 17, 2026
+//  Description:  The robot and devices used by the controller, so that it can
+//                run in Webots (WebotsPlatform) or without the simulator
+//                (HeadlessPlatform). Only the methods used by the controller are
+//                listed, they behave like the Webots ones of the same name.
+//                Only the NAO controllers of this project use it: the Rat0 and
+//                Rat1 e-puck controllers of Lab 2 stay on the Webots API.
+//  Project:      Robotstadium, the online robot soccer competition
+//-----------------------------------------------------------------------------
+
+public interface Platform {
+
+  // thrown by Player.step() when the platform returns -1: the simulation is over
+  class Terminated extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public Terminated() {
+      super("simulation terminated");
+    }
+  }
+
+  // advance the simulation by ms milliseconds, -1 when it is over
+  int step(int ms);
+
+  // simulation time in seconds
+  double getTime();
+
+  Camera getCamera(String name);
+  Motor getMotor(String name);
+  PositionSensor getPositionSensor(String name);
+  Accelerometer getAccelerometer(String name);
+  Gyro getGyro(String name);
+  InertialUnit getInertialUnit(String name);
+  DistanceSensor getDistanceSensor(String name);
+  LED getLED(String name);
+  TouchSensor getTouchSensor(String name);
+  Emitter getEmitter(String name);
+  Receiver getReceiver(String name);
+  GPS getGPS(String name);
+
+  // a motion of MotionLibrary.MOTIONS_DIR, e.g. getMotion("Forwards50"), loaded once
+  Motion getMotion(String name);
+
+  interface Camera {
+    void enable(int samplingPeriod);
+    void disable();
+    int getSamplingPeriod();
+    int[] getImage();  // 0xAARRGGBB pixels, row by row
+    int getWidth();
+    int getHeight();
+    double getFov();
+  }
+
+  interface Motor {
+    void setPosition(double position);
+    double getMinPosition();
+    double getMaxPosition();
+  }
+
+  interface PositionSensor {
+    void enable(int samplingPeriod);
+    double getValue();
+  }
+
+  interface Accelerometer {
+    void enable(int samplingPeriod);
+    double[] getValues();
+  }
+
+  interface Gyro {
+    void enable(int samplingPeriod);
+    double[] getValues();
+  }
+
+  interface InertialUnit {
+    void enable(int samplingPeriod);
+    double[] getRollPitchYaw();
+  }
+
+  interface DistanceSensor {
+    void enable(int samplingPeriod);
+    double getValue();
+  }
+
+  interface LED {
+    void set(int value);
+  }
+
+  interface TouchSensor {
+    void enable(int samplingPeriod);
+    double getValue();
+  }
+
+  interface Emitter {
+    int send(byte[] data);
+  }
+
+  interface Receiver {
+    void enable(int samplingPeriod);
+    int getQueueLength();
+    byte[] getData();
+    void nextPacket();
+  }
+
+  interface GPS {
+    void enable(int samplingPeriod);
+    double[] getValues();
+  }
+
+  interface Motion {
+    String getName();
+    boolean isValid();
+    void play();
+    void stop();
+    boolean isOver();
+    int getTime();  // milliseconds
+    void setTime(int time);
+    int getDuration();
+  }
+}
@@ -8,34 +8,76 @@
 //                February 25, 2008: Adapted to NaoV3R.proto (Camera select)
 //-----------------------------------------------------------------------------
 
-import com.cyberbotics.webots.controller.*;
+import java.io.File;
+import java.io.IOException;
 
-public abstract class Player extends Robot {
+public abstract class Player implements RoboCupGameControlData.Listener {
 
   public static final int SIMULATION_STEP = 40;  // milliseconds
   public static final int CAMERA_STEP = 160;  // camera refresh rate in milliseconds
-
+  public static final boolean ASYNC_VISION = false;  // analyse images on a separate thread
+  public static final double FALL_ANGLE = 1.0;  // roll or pitch (radians) beyond which the robot is down
+  public static final double TEAM_MESSAGE_PERIOD = 0.2;  // seconds between two messages to the teammates
+  public static final double TEAM_BALL_MAX_AGE = 2.0;  // seconds a ball reported by a teammate is used
+  public static final boolean DUMP_METRICS = true;  // print the loop metrics when the controller exits
+
+  // get-up motions, there is no motion yet to stand up from the back
+  private static final String STAND_UP_FROM_FRONT = "StandUpFromFront", STAND_UP_FROM_BACK = "StandUpFromBack";
+  public static final int FALL_NONE = 0, FALL_FRONT = 1, FALL_BACK = 2;
+
+  protected final Platform platform;  // Webots or headless
+  protected final Parameters parameters;  // thresholds tuned by MatchRunner, see Parameters
   protected RoboCupGameControlData gameControlData = new RoboCupGameControlData();
   protected int teamID;
   protected int playerID;
-  private Motion standUpFromFrontMotion;
+  protected MotionScheduler motions = new MotionScheduler(SIMULATION_STEP);
+  protected BallTracker ballTracker = new BallTracker();
+  protected Localization localization = new Localization();
+  protected BallSearch ballSearch = new BallSearch();
+  private int odometryStartCount;        // motion whose displacement is being applied
+  private double odometryProgress;       // fraction of its displacement already applied
+  private double lastBallPerceptionTime = -1.0;
+  private int fall = FALL_NONE;          // see checkFall()
+  private boolean gettingUp;
+
+  // timing of the control loop, see dumpMetrics()
+  protected final Metrics metrics = new Metrics();
+
+  // events of the control loop, written by a background thread (see Telemetry)
+  protected final Telemetry telemetry;
+  private long lastPlatformStepEnd;      // System.nanoTime(), 0 before the first step
+  private long decisionStart;            // see beginDecision(), 0 when no decision is timed
+  private boolean lastBallTracked;
+
+  // team communication: last message of each teammate, indexed by playerID
+  protected final TeamMessage[] teammates = new TeamMessage[TeamInfo.MAX_NUM_PLAYERS];
+  private final TeamMessage teamMessage = new TeamMessage();  // reused for sending
+  private double lastTeamMessageTime = -TEAM_MESSAGE_PERIOD;
+  private boolean lastTeamMessageBall;
+  private int teamMessageSequence;
 
   // devices
-  protected Motor headYaw, headPitch;
-  protected PositionSensor headYawPosition, headPitchPosition;
+  protected Platform.Motor headYaw, headPitch;
+  protected Platform.PositionSensor headYawPosition, headPitchPosition;
   protected NaoCam camera;
-  protected Accelerometer accelerometer;
-  protected Gyro gyro;
-  protected InertialUnit inertialUnit;
-  protected DistanceSensor topLeftUltrasound, topRightUltrasound, bottomLeftUltrasound, bottomRightUltrasound;
-  protected LED chestLed, rightEyeLed, leftEyeLed, rightEarLed, leftEarLed, rightFootLed, leftFootLed;
-  protected TouchSensor[] fsr;  // force sensitive resistors
-  protected Emitter emitter, super_emitter;
-  protected Receiver receiver;
-  protected GPS gps;  // for debugging only ! This device does not exist on the real robot.
+  protected Platform.Accelerometer accelerometer;
+  protected Platform.Gyro gyro;
+  protected Platform.InertialUnit inertialUnit;
+  protected Platform.DistanceSensor topLeftUltrasound, topRightUltrasound, bottomLeftUltrasound, bottomRightUltrasound;
+  protected Platform.LED chestLed, rightEyeLed, leftEyeLed, rightEarLed, leftEarLed, rightFootLed, leftFootLed;
+  protected Platform.TouchSensor[] fsr;  // force sensitive resistors
+  protected Platform.Emitter emitter, super_emitter;
+  protected SupervisorCommands supervisorCommands;  // batched 'move' requests on super_emitter
+  protected Platform.Receiver receiver;
+  protected Platform.GPS gps;  // for debugging only ! This device does not exist on the real robot.
   
   double minHeadYawPosition, maxHeadYawPosition, minHeadPitchPosition, maxHeadPitchPosition;
 
+  // camera switch in progress (see trackBall())
+  private boolean handoverActive, handoverToTop;
+  private double handoverPitch;
+  private int handoverSteps;
+
   public double clamp(double value, double min, double max) {
     if (min > max) {
       assert false;
@@ -52,142 +94,232 @@ public abstract class Player extends Robot {
     return gameControlData.getTeam(RoboCupGameControlData.TEAM_RED).getTeamNumber() == teamID;
   }
 
-  public Player(int playerID, int teamID) {
+  public Player(Platform platform, int playerID, int teamID) {
+    this(platform, playerID, teamID, new Parameters());
+  }
+
+  public Player(Platform platform, int playerID, int teamID, Parameters parameters) {
+    this.platform = platform;
     this.playerID = playerID;
     this.teamID = teamID;
+    this.parameters = parameters;
+    gameControlData.setListener(this);
+    for (int i = 0; i < teammates.length; i++)
+      teammates[i] = new TeamMessage();
+    if (DUMP_METRICS && ! parameters.isBatch())
+      Runtime.getRuntime().addShutdownHook(new Thread(this::dumpMetrics));
+    telemetry = parameters.isBatch() ? new Telemetry() : createTelemetry();
 
     // initialize accelerometer
-    accelerometer = getAccelerometer("accelerometer");
+    accelerometer = platform.getAccelerometer("accelerometer");
     //accelerometer.enable(SIMULATION_STEP);  // uncomment only if needed !
 
     // initialize gyro
-    gyro = getGyro("gyro");
+    gyro = platform.getGyro("gyro");
     //gyro.enable(SIMULATION_STEP);  // uncomment only if needed !
     
     // initialize inertial unit
-    inertialUnit = getInertialUnit("inertial unit");
+    inertialUnit = platform.getInertialUnit("inertial unit");
     inertialUnit.enable(SIMULATION_STEP);
 
     // get "HeadYaw" and "HeadPitch" motors and enable position feedback
-    headYaw = getMotor("HeadYaw");
-    headYawPosition = getPositionSensor("HeadYawS");
+    headYaw = platform.getMotor("HeadYaw");
+    headYawPosition = platform.getPositionSensor("HeadYawS");
     headYawPosition.enable(SIMULATION_STEP);
     minHeadYawPosition = headYaw.getMinPosition();
     maxHeadYawPosition = headYaw.getMaxPosition();
-    headPitch = getMotor("HeadPitch");
-    headPitchPosition = getPositionSensor("HeadPitchS");
+    headPitch = platform.getMotor("HeadPitch");
+    headPitchPosition = platform.getPositionSensor("HeadPitchS");
     headPitchPosition.enable(SIMULATION_STEP);
     minHeadPitchPosition = headPitch.getMinPosition();
     maxHeadPitchPosition = headPitch.getMaxPosition();
 
     // get all LEDs
-    chestLed = getLED("ChestBoard/Led");
-    rightEyeLed = getLED("Face/Led/Right");
-    leftEyeLed = getLED("Face/Led/Left");
-    rightEarLed = getLED("Ears/Led/Right");
-    leftEarLed = getLED("Ears/Led/Left");
-    rightFootLed = getLED("RFoot/Led");
-    leftFootLed = getLED("LFoot/Led");
+    chestLed = platform.getLED("ChestBoard/Led");
+    rightEyeLed = platform.getLED("Face/Led/Right");
+    leftEyeLed = platform.getLED("Face/Led/Left");
+    rightEarLed = platform.getLED("Ears/Led/Right");
+    leftEarLed = platform.getLED("Ears/Led/Left");
+    rightFootLed = platform.getLED("RFoot/Led");
+    leftFootLed = platform.getLED("LFoot/Led");
 
     // make eyes shine blue
     rightEyeLed.set(0x2222ff);
     leftEyeLed.set(0x2222ff);
 
     // create camera
-    camera = new NaoCam(this, CAMERA_STEP);
+    camera = new NaoCam(platform, CAMERA_STEP);
+    camera.setAsynchronous(ASYNC_VISION);
 
     // foot sole touch sensors
     final String[] TOUCH_SENSOR_NAMES = {
       "RFsr", "LFsr"
     };
-    fsr = new TouchSensor[TOUCH_SENSOR_NAMES.length];
+    fsr = new Platform.TouchSensor[TOUCH_SENSOR_NAMES.length];
     for (int i = 0; i < TOUCH_SENSOR_NAMES.length; i++) {
-      fsr[i] = getTouchSensor(TOUCH_SENSOR_NAMES[i]);
+      fsr[i] = platform.getTouchSensor(TOUCH_SENSOR_NAMES[i]);
       //fsr[i].enable(SIMULATION_STEP);  // uncomment only if needed !
     }
 
     // emitter/receiver devices that can be used for inter-robot communication
     // and for receiving RobotCupGameControleData
-    emitter = getEmitter("emitter");
-    receiver = getReceiver("receiver");
+    emitter = platform.getEmitter("emitter");
+    receiver = platform.getReceiver("receiver");
     receiver.enable(SIMULATION_STEP);
 
     // for sending 'move' request to Supervisor
-    super_emitter = getEmitter("super_emitter");
+    super_emitter = platform.getEmitter("super_emitter");
+    supervisorCommands = new SupervisorCommands(super_emitter);
 
     // useful to know the position of the robot
     // the real Nao does not have a GPS, this is for testing only
     // this info will be blurred during Robotstadium contest matches
-    gps = getGPS("gps");
+    gps = platform.getGPS("gps");
     //gps.enable(SIMULATION_STEP);  // uncomment only if needed !
 
     // initialize ultrasound sensors
-    //topLeftUltrasound = getDistanceSensor("USSensor3");
-    //topRightUltrasound = getDistanceSensor("USSensor1");
-    //bottomLeftUltrasound = getDistanceSensor("USSensor4");
-    //bottomRightUltrasound = getDistanceSensor("USSensor2");
+    //topLeftUltrasound = platform.getDistanceSensor("USSensor3");
+    //topRightUltrasound = platform.getDistanceSensor("USSensor1");
+    //bottomLeftUltrasound = platform.getDistanceSensor("USSensor4");
+    //bottomRightUltrasound = platform.getDistanceSensor("USSensor2");
     //topLeftUltrasound.enable(SIMULATION_STEP);  // uncomment only if needed !
     //topRightUltrasound.enable(SIMULATION_STEP);  // uncomment only if needed !
     //bottomLeftUltrasound.enable(SIMULATION_STEP);  // uncomment only if needed !
     //bottomRightUltrasound.enable(SIMULATION_STEP);  // uncomment only if needed !
+  }
+
+  // play the specified motion until it is over or interrupted
+  // the game state and interruptMotion() are checked at every step
+  // return the fraction of the motion that was played
+  protected double playMotion(Platform.Motion motion) {
+    endDecision();
+    long start = Metrics.start();
+    try {
+      if (gameControlData.getState() != RoboCupGameControlData.STATE_PLAYING) {
+        runStep();
+        return 0.0;
+      }
+
+      // a robot on the ground gets up first
+      if (fall != FALL_NONE && ! gettingUp) {
+        getUpIfNecessary();
+        return 0.0;
+      }
+
+      motions.play(motion);
+      do {
+        runStep();
+        Platform.Motion current = motions.getCurrent();
+        if (current != null && (gameControlData.getState() != RoboCupGameControlData.STATE_PLAYING || interruptMotion(current)))
+          motions.stop();  // at the next safe point of the motion
+      }
+      while (! motions.isIdle());
+
+      return motions.getLastProgress();
+    }
+    finally {
+      metrics.stop(Metrics.PLAY_MOTION, start);
+    }
+  }
 
-    // load motion
-    standUpFromFrontMotion = new Motion("../../motions/StandUpFromFront.motion");
+  // play a motion of MotionLibrary, e.g. playMotion("Forwards50")
+  protected double playMotion(String name) {
+    return playMotion(platform.getMotion(name));
   }
 
-  // play until the specified motion is over
-  protected void playMotion(Motion motion) {
+  // called at every step while a motion is played by playMotion()
+  // return true to stop the motion at its next safe point
+  protected boolean interruptMotion(Platform.Motion motion) {
+    return false;
+  }
+
+  // motion currently played, or null
+  protected Platform.Motion getCurrentMotion() {
+    return motions.getCurrent();
+  }
+
+  // fraction of the current motion that has been played
+  protected double getMotionProgress() {
+    return motions.getProgress();
+  }
 
-    if (gameControlData.getState() != RoboCupGameControlData.STATE_PLAYING) {
-      runStep();
+  // play the get-up motion matching the last fall detected by checkFall()
+  protected void getUpIfNecessary() {
+    if (fall == FALL_NONE || gettingUp)
       return;
+
+    String name = STAND_UP_FROM_FRONT;
+    if (fall == FALL_BACK) {
+      if (MotionLibrary.exists(STAND_UP_FROM_BACK))
+        name = STAND_UP_FROM_BACK;
+      else
+        telemetry.log(Telemetry.MISSING_MOTION, getTime());
     }
 
-    // play to the end
-    motion.play();
-    do {
-      runStep();
+    gettingUp = true;
+    try {
+      playMotion(name);
+    }
+    finally {
+      gettingUp = false;
     }
-    while (! motion.isOver());
   }
 
-  // use inertial unit to detect fall
-  protected void getUpIfNecessary() {
+  // FALL_NONE, FALL_FRONT or FALL_BACK
+  public int getFall() {
+    return fall;
+  }
+
+  // fall watchdog, called at every step: as soon as the inertial unit reports
+  // a fall the running motion is aborted instead of being played on the ground
+  // a positive pitch means that the robot leans forwards
+  private void checkFall() {
     double[] rpy = inertialUnit.getRollPitchYaw();
-    if (Math.abs(rpy[0]) > 3.142 || Math.abs(rpy[1]) > 3.142)
-      playMotion(standUpFromFrontMotion);
+    if (Math.abs(rpy[0]) < FALL_ANGLE && Math.abs(rpy[1]) < FALL_ANGLE) {
+      fall = FALL_NONE;
+      return;
+    }
+    if (fall != FALL_NONE || gettingUp)
+      return;
+
+    fall = rpy[1] >= 0.0 ? FALL_FRONT : FALL_BACK;
+    metrics.count(Metrics.FALLS);
+    telemetry.log(Telemetry.FALL, getTime(), fall);
+    motions.abort();
   }
 
-  // move head from left to right and from right to left
-  // until the ball is sighted or the scan motion is over
+  // look for the ball with the head where the BallSearch map is the most likely
+  // to show it per unit of time, until the ball is sighted or the directions
+  // within reach of the head are unlikely (the body must turn, see BallSearch)
   protected void headScan() {
-    final int STEPS = 30;
-    final double HEAD_YAW_MAX = 2.0;
-    double yawAngle;
+    final int MAX_LOOKS = 12;
+    final int MAX_LOOK_STEPS = 12;            // head turn and one image
+    final double MIN_REACHABLE_MASS = 0.15;
+    final double YAW_TOLERANCE = 0.1;
 
+    cancelCameraHandover();
     headPitch.setPosition(0.0);  // horizontal head
-    camera.selectTop();  // use top camera
 
-    // left to right using TOP camera
-    for (int i = 0; i < STEPS; i++) {
-      yawAngle = ((double)i / (STEPS - 1) * 2.0 - 1.0) * HEAD_YAW_MAX;
-      headYaw.setPosition(clamp(yawAngle, minHeadYawPosition, maxHeadYawPosition));
-      step(SIMULATION_STEP);
-      camera.processImage();
-      if (camera.getBallDirectionAngle() != NaoCam.UNKNOWN)
-        return;
-    }
-
-    camera.selectBottom();  // use bottom camera
-
-    // right to left using BOTTOM camera
-    for (int i = STEPS - 1; i >= 0; i--) {
-      yawAngle = ((double)i / (STEPS - 1) * 2.0 - 1.0) * HEAD_YAW_MAX;
-      headYaw.setPosition(clamp(yawAngle, minHeadYawPosition, maxHeadYawPosition));
-      step(SIMULATION_STEP);
-      camera.processImage();
-      if (camera.getBallDirectionAngle() != NaoCam.UNKNOWN)
-        return;
+    for (int look = 0; look < MAX_LOOKS; look++) {
+      if (look > 0 && ballSearch.getReachableMass(minHeadYawPosition, maxHeadYawPosition, camera.getFov()) < MIN_REACHABLE_MASS)
+        break;
+      ballSearch.planHead(headYawPosition.getValue(), minHeadYawPosition, maxHeadYawPosition, camera.isTopSelected(), camera.getFov());
+      double yaw = ballSearch.getTargetYaw();
+      if (ballSearch.isTargetTop())
+        camera.selectTop();
+      else
+        camera.selectBottom();
+      headYaw.setPosition(yaw);
+
+      // wait for an image taken with the head at the target
+      for (int i = 0; i < MAX_LOOK_STEPS; i++) {
+        step(SIMULATION_STEP);
+        processImage();
+        if (camera.getBallDirectionAngle() != NaoCam.UNKNOWN)
+          return;
+        if (camera.isNewFrame() && Math.abs(camera.getPerceptionHeadYaw() - yaw) < YAW_TOLERANCE)
+          break;
+      }
     }
 
     // ball was not found: restore head straight position
@@ -198,7 +330,7 @@ public abstract class Player extends Robot {
     if (camera.getBallDirectionAngle() == NaoCam.UNKNOWN)
       return NaoCam.UNKNOWN;
     else
-      return camera.getBallDirectionAngle() - headYawPosition.getValue();
+      return camera.getBallDirectionAngle() - camera.getPerceptionHeadYaw();
   }
 
   // compute floor distance between robot (feet) and ball
@@ -208,48 +340,94 @@ public abstract class Player extends Robot {
     if (camera.getBallElevationAngle() == NaoCam.UNKNOWN)
       return NaoCam.UNKNOWN;
 
-    double ballElev = camera.getBallElevationAngle() - headPitchPosition.getValue() - camera.getOffsetAngle();
+    double ballElev = camera.getBallElevationAngle() - camera.getPerceptionHeadPitch() - camera.getPerceptionOffsetAngle();
     return (0.51 - 0.043) / Math.tan(-ballElev);
   }
 
   // turn head towards ball if ball position is known
+  // when the ball gets too high or too low in the image the other camera is started
+  // and the head moves by OFFSET_ANGLE, the current camera keeps tracking until
+  // the other one has an image and the head has arrived (see updateCameraHandover())
   protected void trackBall() {
     final double P = 0.7;
+
+    updateCameraHandover();
+
     double ballDirection = camera.getBallDirectionAngle();
     double ballElevation = camera.getBallElevationAngle();
 
-    if (ballDirection == NaoCam.UNKNOWN) return;
+    if (ballDirection == NaoCam.UNKNOWN) {
+      // keep looking where the ball is expected to be, at its distance with the current camera
+      if (ballTracker.isValid() && ! handoverActive) {
+        headYaw.setPosition(clamp(-ballTracker.getDirection(), minHeadYawPosition, maxHeadYawPosition));
+        double pitch = Math.atan2(0.51, ballTracker.getDistance()) - camera.getOffsetAngle();
+        headPitch.setPosition(clamp(pitch, minHeadPitchPosition, maxHeadPitchPosition));
+      }
+      return;
+    }
 
-    // compute target head pitch
-    double pitch = headPitchPosition.getValue() - ballElevation * P;
+    // the errors were measured in an image taken up to CAMERA_STEP ago: the targets
+    // are relative to the head pose of that image, not to the current one
+    if (! handoverActive) {
+      // compute target head pitch
+      double pitch = camera.getPerceptionHeadPitch() - ballElevation * P;
 
-    if (pitch < -0.4 && camera.getOffsetAngle() > 0.0) { // need to switch to TOP camera ?
-      System.out.println("switched to TOP camera");
-      camera.selectTop();
-      pitch += NaoCam.OFFSET_ANGLE;  // move head down 40 degrees
-      headPitch.setPosition(clamp(pitch, minHeadPitchPosition, maxHeadPitchPosition));
-      sleepSteps(8);  // allow some time to move head
-      camera.processImage();
-    }
-    else if (pitch > 0.5 && camera.getOffsetAngle() == 0.0) { // need to switch to BOTTOM camera ?
-      System.out.println("switched to BOTTOM camera");
-      camera.selectBottom();
-      pitch -= NaoCam.OFFSET_ANGLE;  // move head up 40 degrees
-      headPitch.setPosition(clamp(pitch, minHeadPitchPosition, maxHeadPitchPosition));
-      sleepSteps(8);  // allow some time to move head
-      camera.processImage();
+      if (pitch < -0.4 && camera.getOffsetAngle() > 0.0) { // need to switch to TOP camera ?
+        camera.prepareTop();
+        startCameraHandover(true, pitch + NaoCam.OFFSET_ANGLE);  // move head down 40 degrees
+      }
+      else if (pitch > 0.5 && camera.getOffsetAngle() == 0.0) { // need to switch to BOTTOM camera ?
+        camera.prepareBottom();
+        startCameraHandover(false, pitch - NaoCam.OFFSET_ANGLE);  // move head up 40 degrees
+      }
+      else
+        headPitch.setPosition(clamp(pitch, minHeadPitchPosition, maxHeadPitchPosition));
     }
 
-    headPitch.setPosition(clamp(pitch, minHeadPitchPosition, maxHeadPitchPosition));
-    double yawAngle = headYawPosition.getValue() - ballDirection * P;
+    double yawAngle = camera.getPerceptionHeadYaw() - ballDirection * P;
     headYaw.setPosition(clamp(yawAngle, minHeadYawPosition, maxHeadYawPosition));
   }
 
-  // update torso LED color according to game state
-  protected void updateGameControl() {
+  private void startCameraHandover(boolean toTop, double pitch) {
+    handoverActive = true;
+    handoverToTop = toTop;
+    handoverPitch = clamp(pitch, minHeadPitchPosition, maxHeadPitchPosition);
+    handoverSteps = 0;
+    headPitch.setPosition(handoverPitch);
+  }
 
-    // choose goal color according to team's color
-    // and display team color on left foot LED
+  // complete the camera switch once the new camera has an image and the head is in
+  // position, or after HANDOVER_STEPS steps at most
+  private void updateCameraHandover() {
+    final int HANDOVER_STEPS = 8;
+    final double PITCH_TOLERANCE = 0.05;
+
+    if (! handoverActive)
+      return;
+
+    handoverSteps++;
+    boolean headArrived = Math.abs(headPitchPosition.getValue() - handoverPitch) < PITCH_TOLERANCE;
+    if ((camera.hasImage(handoverToTop) && headArrived) || handoverSteps >= HANDOVER_STEPS) {
+      if (handoverToTop)
+        camera.selectTop();
+      else
+        camera.selectBottom();
+      telemetry.log(Telemetry.CAMERA_SWITCH, getTime(), handoverToTop ? 1.0 : 0.0);
+      handoverActive = false;
+      metrics.count(Metrics.CAMERA_SWITCHES);
+      if (camera.hasImage(handoverToTop))
+        processImage();
+    }
+  }
+
+  // abandon a camera switch, e.g. when the camera is selected explicitly
+  protected void cancelCameraHandover() {
+    handoverActive = false;
+  }
+
+  // choose goal color according to team's color
+  // and display team color on left foot LED
+  @Override public void teamsChanged() {
     if (isRed()) {
       camera.setGoalColor(NaoCam.Goal.SKY_BLUE);
       leftFootLed.set(0xff2222);
@@ -258,8 +436,11 @@ public abstract class Player extends Robot {
       camera.setGoalColor(NaoCam.Goal.YELLOW);
       leftFootLed.set(0x2222ff);
     }
+  }
 
-    switch (gameControlData.getState()) {
+  // update torso LED color according to game state
+  @Override public void gameStateChanged(byte state) {
+    switch (state) {
       case RoboCupGameControlData.STATE_INITIAL:
       case RoboCupGameControlData.STATE_FINISHED:
         chestLed.set(0x000000);  // off
@@ -276,13 +457,26 @@ public abstract class Player extends Robot {
     }
   }
 
+  // a penalized robot is put back on the field somewhere else
+  @Override public void penaltyChanged(byte team, int player, short penalty) {
+    if (gameControlData.getTeam(team).getTeamNumber() == teamID && player == playerID && penalty == RobotInfo.PENALTY_NONE) {
+      localization.reset();
+      ballTracker.reset();
+    }
+  }
+
   protected void readIncomingMessages() {
     while (receiver.getQueueLength() > 0) {
       byte[] data = receiver.getData();
       if (RoboCupGameControlData.hasValidHeader(data)) {
+        // repeated packets are skipped, changes are reported to teamsChanged(), gameStateChanged(), etc.
         gameControlData.update(data);
         //System.out.println(gameControlData);
-        updateGameControl();
+      }
+      else if (TeamMessage.hasValidHeader(data)) {
+        int player = TeamMessage.getPlayer(data);
+        if (TeamMessage.getTeam(data) == teamID && player != playerID && player >= 0 && player < teammates.length)
+          teammates[player].decode(data);
       }
       // else
       //   System.out.println("readIncomingMessages(): received unexpected message of " + data.length + " bytes");
@@ -293,41 +487,243 @@ public abstract class Player extends Robot {
 
   // move the robot to a specified position (via a message sent to the Supervisor)
   // [tx ty tz]: the new robot position, alpha: the robot's heading direction
+  // the commands of a step are sent together in one binary packet (see SupervisorCommands)
   // For debugging only: this is disabled during the contest rounds
   protected void sendMoveRobotMessage(double tx, double ty, double tz, double alpha) {
-    String request = "move robot " + playerID + " " + teamID + " " + tx + " " + ty + " " + tz + " " + alpha + "\0";
-    try {
-      super_emitter.send(request.getBytes("US-ASCII"));
-    }
-    catch (java.io.UnsupportedEncodingException e) {
-      System.out.println(e);
-    }
+    supervisorCommands.moveRobot(playerID, teamID, tx, ty, tz, alpha);
   }
 
   // move the ball to a specified position (via a message sent to the Supervisor)
   // [tx ty tz]: the new ball position
   // For debugging only: this is disabled during the contest rounds
   protected void sendMoveBallMessage(double tx, double ty, double tz) {
-    String request = "move ball " + tx + " " + ty + " " + tz + "\0";
-    try {
-      super_emitter.send(request.getBytes("US-ASCII"));
-    }
-    catch (java.io.UnsupportedEncodingException e) {
-      System.out.println(e);
-    }
+    supervisorCommands.moveBall(tx, ty, tz);
   }
   
-  // overidden method of the Robot baseclass
-  // we need to read incoming messages at every step
+  // advance the simulation by ms milliseconds
+  // we need to read incoming messages, update the motions and watch for falls at every step
   public int step(int ms) {
+    long start = Metrics.start();
+    endDecision();
     readIncomingMessages();
-    return super.step(ms);
+    metrics.stop(Metrics.READ_MESSAGES, start);
+    supervisorCommands.flush();
+
+    // controller time since the previous step, an overrun delays the simulation
+    long platformStart = Metrics.start();
+    if (lastPlatformStepEnd != 0) {
+      long control = platformStart - lastPlatformStepEnd;
+      metrics.record(Metrics.CONTROL, control);
+      if (control > ms * 1000000L)
+        metrics.count(Metrics.OVERRUNS);
+    }
+    int result = platform.step(ms);
+    lastPlatformStepEnd = metrics.stop(Metrics.PLATFORM_STEP, platformStart);
+    if (result == -1)
+      throw new Platform.Terminated();
+
+    motions.update();
+    checkFall();
+    ballTracker.predict(ms / 1000.0);
+    ballSearch.predict(ms / 1000.0);
+    if (lastBallTracked && ! ballTracker.isValid())
+      metrics.count(Metrics.BALL_LOST);
+    lastBallTracked = ballTracker.isValid();
+    updateOdometry();
+    sendTeamMessage();
+    metrics.count(Metrics.STEPS);
+    metrics.stop(Metrics.STEP, start);
+    return result;
+  }
+
+  // start timing a behavior decision, it ends with the next motion or step
+  protected void beginDecision() {
+    decisionStart = Metrics.start();
+  }
+
+  private void endDecision() {
+    if (decisionStart != 0) {
+      metrics.stop(Metrics.DECISION, decisionStart);
+      decisionStart = 0;
+    }
+  }
+
+  // NAO_TELEMETRY=<directory>: binary events for the Telemetry decoder, text on System.out otherwise
+  private Telemetry createTelemetry() {
+    String dir = System.getenv("NAO_TELEMETRY");
+    if (dir != null) {
+      File file = new File(dir, "team" + teamID + "_player" + playerID + ".tlm");
+      try {
+        return new Telemetry(file);
+      }
+      catch (IOException e) {
+        System.out.println("cannot write telemetry to " + file + ": " + e.getMessage());
+      }
+    }
+    return new Telemetry("");
+  }
+
+  // print the loop timings and counters, also called when the controller exits (see DUMP_METRICS)
+  public void dumpMetrics() {
+    System.out.println("player " + playerID + " of team " + teamID + " metrics:");
+    metrics.dump(System.out);
+  }
+
+  // role announced to the teammates, see TeamMessage
+  protected int getRole() {
+    return TeamMessage.ROLE_STRIKER;
+  }
+
+  // one message per TEAM_MESSAGE_PERIOD with the state at the end of the step,
+  // sent earlier when the ball is found or lost
+  private void sendTeamMessage() {
+    double time = getTime();
+    boolean ball = ballTracker.isValid() && localization.isLocalized();
+    if (time - lastTeamMessageTime < TEAM_MESSAGE_PERIOD && ball == lastTeamMessageBall)
+      return;
+    lastTeamMessageTime = time;
+    lastTeamMessageBall = ball;
+
+    int flags = (ball ? TeamMessage.BALL_VALID : 0) | (localization.isLocalized() ? TeamMessage.LOCALIZED : 0) | (fall != FALL_NONE ? TeamMessage.FALLEN : 0);
+    double theta = localization.getTheta();
+    double c = Math.cos(theta), s = Math.sin(theta);
+    double ballX = localization.getX() + c * ballTracker.getX() - s * ballTracker.getY();
+    double ballY = localization.getY() + s * ballTracker.getX() + c * ballTracker.getY();
+    emitter.send(teamMessage.encode(teamID, playerID, getRole(), flags, teamMessageSequence++, time,
+                                    localization.getX(), localization.getY(), theta,
+                                    ballX, ballY, ballTracker.getAge(), ballTracker.getPositionStd()));
+  }
+
+  // most recent teammate ball position (field frame) not older than TEAM_BALL_MAX_AGE, or null
+  protected TeamMessage getTeamBall() {
+    TeamMessage best = null;
+    for (TeamMessage message : teammates) {
+      if (! message.isReceived() || ! message.hasFlag(TeamMessage.BALL_VALID) || getTime() - message.getBallTime() > TEAM_BALL_MAX_AGE)
+        continue;
+      if (best == null || message.getBallTime() > best.getBallTime())
+        best = message;
+    }
+    return best;
+  }
+
+  // turn the head towards a point on the field (see Localization) and look for the ball there
+  // return true if the ball was found
+  protected boolean lookAt(double x, double y) {
+    final int STEPS = 8;  // two camera images
+
+    cancelCameraHandover();
+    camera.selectTop();
+    double distance = localization.getDistance(x, y);
+    headYaw.setPosition(clamp(-localization.getDirection(x, y), minHeadYawPosition, maxHeadYawPosition));
+    headPitch.setPosition(clamp(Math.atan2(0.51, distance), minHeadPitchPosition, maxHeadPitchPosition));
+    for (int i = 0; i < STEPS; i++) {
+      step(SIMULATION_STEP);
+      processImage();
+      if (camera.getBallDirectionAngle() != NaoCam.UNKNOWN)
+        return true;
+    }
+    return false;
+  }
+
+  // apply the displacement of the running motion, proportionally to its progress
+  private void updateOdometry() {
+    if (motions.getStartCount() != odometryStartCount) {
+      odometryStartCount = motions.getStartCount();
+      odometryProgress = 0.0;
+    }
+    Platform.Motion motion = motions.getLastMotion();
+    double progress = motions.getLastProgress();
+    if (motion == null || progress <= odometryProgress)
+      return;
+
+    double[] d = MotionLibrary.getDisplacement(motion.getName());
+    double fraction = progress - odometryProgress;
+    odometryProgress = progress;
+    if (d[0] != 0.0 || d[1] != 0.0 || d[2] != 0.0)
+      applyOdometry(d[0] * fraction, d[1] * fraction, d[2] * fraction, fraction);
+  }
+
+  // the robot moved by (dx, dy) meters (forwards, left) and turned by dtheta radians (counter-clockwise)
+  // during the given fraction of a motion
+  protected void applyOdometry(double dx, double dy, double dtheta, double fraction) {
+    ballTracker.applyOdometry(dx, dy, dtheta);
+    ballSearch.applyOdometry(dx, dy, dtheta);
+    localization.applyOdometry(dx, dy, dtheta, fraction);
   }
 
   protected void runStep()  {
+    long start = Metrics.start();
     trackBall();
+    metrics.stop(Metrics.TRACK_BALL, start);
     step(SIMULATION_STEP);
-    camera.processImage();
+    processImage();
+  }
+
+  // analyse the current camera image, the head position lets
+  // the camera follow the ball with a small search window
+  protected void processImage() {
+    long start = Metrics.start();
+    camera.processImage(headYawPosition.getValue(), headPitchPosition.getValue());
+    if (camera.isNewFrame())
+      metrics.count(Metrics.FRAMES);
+
+    // fuse each new ball detection into the ball estimate
+    double time = camera.getPerceptionTime();
+    if (time != lastBallPerceptionTime) {
+      lastBallPerceptionTime = time;
+      if (getBallDirection() != NaoCam.UNKNOWN) {
+        double distance = getBallDistance();
+        ballTracker.update(getBallDirection(), distance);
+        ballSearch.seen(getBallDirection(), distance > 0.0 ? distance : Double.POSITIVE_INFINITY);
+      }
+      else
+        ballSearch.missed(camera.getPerceptionHeadYaw(), camera.getPerceptionOffsetAngle() == 0.0, camera.getFov());
+      updateLocalization();
+    }
+    metrics.stop(Metrics.PROCESS_IMAGE, start);
+  }
+
+  // weigh the localization particles with the goals of the new image
+  private void updateLocalization() {
+    double dir = camera.getGoalDirectionAngle();
+    if (dir != NaoCam.UNKNOWN)
+      localization.updateOpponentGoal(dir - camera.getPerceptionHeadYaw(), getFloorDistance(camera.getGoalBottomElevationAngle()));
+    dir = camera.getOwnGoalDirectionAngle();
+    if (dir != NaoCam.UNKNOWN)
+      localization.updateOwnGoal(dir - camera.getPerceptionHeadYaw(), getFloorDistance(camera.getOwnGoalBottomElevationAngle()));
+  }
+
+  // floor distance of a point on the ground seen at the given elevation angle in the image
+  // 0.51 -> approx robot camera base height with respect to ground (see getBallDistance())
+  private double getFloorDistance(double elevation) {
+    if (elevation == NaoCam.UNKNOWN)
+      return NaoCam.UNKNOWN;
+    double angle = elevation - camera.getPerceptionHeadPitch() - camera.getPerceptionOffsetAngle();
+    return angle < 0.0 ? 0.51 / Math.tan(-angle) : NaoCam.UNKNOWN;
+  }
+
+  // estimated ball direction and distance, also when the ball is not in the current image
+  // NaoCam.UNKNOWN if the ball was not seen for too long
+  public boolean isBallTracked() {
+    return ballTracker.isValid();
+  }
+
+  public double getEstimatedBallDirection() {
+    return ballTracker.getDirection();
+  }
+
+  public double getEstimatedBallDistance() {
+    return ballTracker.getDistance();
+  }
+
+  // true when the position on the field is known (see Localization)
+  public boolean isLocalized() {
+    return localization.isLocalized();
+  }
+
+  // simulation time in seconds
+  public double getTime() {
+    return platform.getTime();
   }
 
   protected void sleepSteps(int steps) {
@@ -0,0 +1,289 @@
+//-----------------------------------------------------------------------------
+//  File:         RecordingPlatform.java (to be used in a Webots java controllers)
+//  Date:         October 17, 2026
+//  Description:  Platform wrapping another one and writing to a SensorLog every
+//                value the controller reads from it: camera images, joint
+//                positions, IMU values, received packets, motion states...
+//                A STEP record is written after each step, so the log can be
+//                replayed step by step by ReplayPlatform.
+//                Commands (motors, LEDs, emitters, motion play/stop) are not
+//                recorded: the replayed controller sends them again.
+//  Project:      Robotstadium, the online robot soccer competition
+//-----------------------------------------------------------------------------
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+
+public class RecordingPlatform implements Platform {
+
+  public static final int BLOCK = 8;  // log ids per device, see id()
+
+  private final Platform platform;
+  private final File file;
+  private SensorLog.Writer log;  // null once closed or after an error
+  private final HashMap<String, Integer> ids = new HashMap<>();
+  private final HashMap<String, Motion> motions = new HashMap<>();
+
+  public RecordingPlatform(Platform platform, File file) throws IOException {
+    this.platform = platform;
+    this.file = file;
+    log = new SensorLog.Writer(file);
+  }
+
+  // stop recording, the controller keeps running
+  public void close() {
+    if (log == null)
+      return;
+    try {
+      log.close();
+    }
+    catch (IOException e) {
+      System.out.println("RecordingPlatform: cannot close " + file + ": " + e.getMessage());
+    }
+    log = null;
+  }
+
+  // a recording error must not stop the robot: report it and stop recording
+  private void failed(IOException e) {
+    System.out.println("RecordingPlatform: recording stopped: " + e.getMessage());
+    log = null;
+  }
+
+  // log id of a device, its name is written the first time. Each device has
+  // a block of BLOCK ids, one per read method in the order of the Platform
+  // interface, so that each id has values of a single type
+  private int id(String key) {
+    Integer id = ids.get(key);
+    if (id == null) {
+      id = BLOCK * (ids.size() + 1);  // the first block is that of the STEP records
+      ids.put(key, id);
+      if (log != null) {
+        try {
+          log.device(id, key);
+        }
+        catch (IOException e) {
+          failed(e);
+        }
+      }
+    }
+    return id;
+  }
+
+  private int record(int id, int value) {
+    if (log != null) {
+      try {
+        log.putInt(id, value);
+      }
+      catch (IOException e) {
+        failed(e);
+      }
+    }
+    return value;
+  }
+
+  private boolean record(int id, boolean value) {
+    record(id, value ? 1 : 0);
+    return value;
+  }
+
+  private double record(int id, double value) {
+    if (log != null) {
+      try {
+        log.putDouble(id, value);
+      }
+      catch (IOException e) {
+        failed(e);
+      }
+    }
+    return value;
+  }
+
+  private double[] record(int id, double[] values) {
+    if (log != null) {
+      try {
+        log.putDoubles(id, values);
+      }
+      catch (IOException e) {
+        failed(e);
+      }
+    }
+    return values;
+  }
+
+  private int[] record(int id, int[] values) {
+    if (log != null) {
+      try {
+        log.putInts(id, values);
+      }
+      catch (IOException e) {
+        failed(e);
+      }
+    }
+    return values;
+  }
+
+  private byte[] record(int id, byte[] values) {
+    if (log != null) {
+      try {
+        log.putBytes(id, values);
+      }
+      catch (IOException e) {
+        failed(e);
+      }
+    }
+    return values;
+  }
+
+  @Override public int step(int ms) {
+    int result = platform.step(ms);
+    if (result == -1)
+      close();
+    else if (log != null) {
+      try {
+        log.step(platform.getTime());
+      }
+      catch (IOException e) {
+        failed(e);
+      }
+    }
+    return result;
+  }
+
+  @Override public double getTime() {
+    return platform.getTime();
+  }
+
+  @Override public Camera getCamera(String name) {
+    final Camera camera = platform.getCamera(name);
+    final int id = id("camera:" + name);
+    return new Camera() {
+      public void enable(int samplingPeriod) { camera.enable(samplingPeriod); }
+      public void disable() { camera.disable(); }
+      public int getSamplingPeriod() { return record(id + 0, camera.getSamplingPeriod()); }
+      public int[] getImage() { return record(id + 1, camera.getImage()); }
+      public int getWidth() { return record(id + 2, camera.getWidth()); }
+      public int getHeight() { return record(id + 3, camera.getHeight()); }
+      public double getFov() { return record(id + 4, camera.getFov()); }
+    };
+  }
+
+  @Override public Motor getMotor(String name) {
+    final Motor motor = platform.getMotor(name);
+    final int id = id("motor:" + name);
+    return new Motor() {
+      public void setPosition(double position) { motor.setPosition(position); }
+      public double getMinPosition() { return record(id + 0, motor.getMinPosition()); }
+      public double getMaxPosition() { return record(id + 1, motor.getMaxPosition()); }
+    };
+  }
+
+  @Override public PositionSensor getPositionSensor(String name) {
+    final PositionSensor sensor = platform.getPositionSensor(name);
+    final int id = id("position:" + name);
+    return new PositionSensor() {
+      public void enable(int samplingPeriod) { sensor.enable(samplingPeriod); }
+      public double getValue() { return record(id + 0, sensor.getValue()); }
+    };
+  }
+
+  @Override public Accelerometer getAccelerometer(String name) {
+    final Accelerometer sensor = platform.getAccelerometer(name);
+    final int id = id("accelerometer:" + name);
+    return new Accelerometer() {
+      public void enable(int samplingPeriod) { sensor.enable(samplingPeriod); }
+      public double[] getValues() { return record(id + 0, sensor.getValues()); }
+    };
+  }
+
+  @Override public Gyro getGyro(String name) {
+    final Gyro sensor = platform.getGyro(name);
+    final int id = id("gyro:" + name);
+    return new Gyro() {
+      public void enable(int samplingPeriod) { sensor.enable(samplingPeriod); }
+      public double[] getValues() { return record(id + 0, sensor.getValues()); }
+    };
+  }
+
+  @Override public InertialUnit getInertialUnit(String name) {
+    final InertialUnit sensor = platform.getInertialUnit(name);
+    final int id = id("inertial:" + name);
+    return new InertialUnit() {
+      public void enable(int samplingPeriod) { sensor.enable(samplingPeriod); }
+      public double[] getRollPitchYaw() { return record(id + 0, sensor.getRollPitchYaw()); }
+    };
+  }
+
+  @Override public DistanceSensor getDistanceSensor(String name) {
+    final DistanceSensor sensor = platform.getDistanceSensor(name);
+    final int id = id("distance:" + name);
+    return new DistanceSensor() {
+      public void enable(int samplingPeriod) { sensor.enable(samplingPeriod); }
+      public double getValue() { return record(id + 0, sensor.getValue()); }
+    };
+  }
+
+  @Override public LED getLED(String name) {
+    return platform.getLED(name);
+  }
+
+  @Override public TouchSensor getTouchSensor(String name) {
+    final TouchSensor sensor = platform.getTouchSensor(name);
+    final int id = id("touch:" + name);
+    return new TouchSensor() {
+      public void enable(int samplingPeriod) { sensor.enable(samplingPeriod); }
+      public double getValue() { return record(id + 0, sensor.getValue()); }
+    };
+  }
+
+  @Override public Emitter getEmitter(String name) {
+    final Emitter emitter = platform.getEmitter(name);
+    final int id = id("emitter:" + name);
+    return new Emitter() {
+      public int send(byte[] data) { return record(id + 0, emitter.send(data)); }
+    };
+  }
+
+  @Override public Receiver getReceiver(String name) {
+    final Receiver receiver = platform.getReceiver(name);
+    final int id = id("receiver:" + name);
+    return new Receiver() {
+      public void enable(int samplingPeriod) { receiver.enable(samplingPeriod); }
+      public int getQueueLength() { return record(id + 0, receiver.getQueueLength()); }
+      public byte[] getData() { return record(id + 1, receiver.getData()); }
+      public void nextPacket() { receiver.nextPacket(); }
+    };
+  }
+
+  @Override public GPS getGPS(String name) {
+    final GPS gps = platform.getGPS(name);
+    final int id = id("gps:" + name);
+    return new GPS() {
+      public void enable(int samplingPeriod) { gps.enable(samplingPeriod); }
+      public double[] getValues() { return record(id + 0, gps.getValues()); }
+    };
+  }
+
+  // one wrapper per motion: MotionScheduler compares them by identity
+  @Override public Motion getMotion(String name) {
+    Motion recorded = motions.get(name);
+    if (recorded == null) {
+      recorded = record(platform.getMotion(name), id("motion:" + name));
+      motions.put(name, recorded);
+    }
+    return recorded;
+  }
+
+  private Motion record(final Motion motion, final int id) {
+    return new Motion() {
+      public String getName() { return motion.getName(); }
+      public boolean isValid() { return record(id + 0, motion.isValid()); }
+      public void play() { motion.play(); }
+      public void stop() { motion.stop(); }
+      public boolean isOver() { return record(id + 1, motion.isOver()); }
+      public int getTime() { return record(id + 2, motion.getTime()); }
+      public void setTime(int time) { motion.setTime(time); }
+      public int getDuration() { return record(id + 3, motion.getDuration()); }
+    };
+  }
+}
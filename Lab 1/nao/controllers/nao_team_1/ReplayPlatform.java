@@ -0,0 +1,297 @@
+//-----------------------------------------------------------------------------
+//  File:         ReplayPlatform.java (to be used in a Webots java controllers)
+//  Date:         October 17, 2026
+//  Description:  Platform feeding the controller from a SensorLog written by
+//                RecordingPlatform, as fast as possible and without Webots.
+//                Each device returns, in the same order, the values it returned
+//                during the same step of the recording. When the replayed
+//                controller reads more values than were recorded (its code was
+//                changed) the last value is returned again and the read is
+//                counted as a divergence. Commands are ignored.
+//                Usage: java ReplayPlatform <log> [playerID teamID]
+//  Project:      Robotstadium, the online robot soccer competition
+//-----------------------------------------------------------------------------
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+
+public class ReplayPlatform implements Platform {
+
+  private final SensorLog.Reader log;
+  private final HashMap<String, Motion> motions = new HashMap<>();
+  private int cursor;          // offset of the next record, -1 at the end of the log
+  private int step = -1;       // index of the current step, -1 before the first one
+  private double time;
+  private long divergences;
+
+  // per value id (see RecordingPlatform.id()): offsets of the values recorded during the current step
+  private int[][] values = new int[0][];
+  private int[] counts = new int[0];
+  private int[] reads = new int[0];
+  private int[] last = new int[0];  // last offset returned, -1 if none
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.out.println("usage: java ReplayPlatform <log> [playerID teamID]");
+      return;
+    }
+    int playerID = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+    int teamID = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+    ReplayPlatform platform = new ReplayPlatform(new File(args[0]));
+    long start = System.nanoTime();
+    try {
+      if (playerID == 0)
+        new GoalKeeper(platform, playerID, teamID).run();
+      else
+        new FieldPlayer(platform, playerID, teamID).run();
+    }
+    catch (Platform.Terminated e) {
+      // end of the log
+    }
+    double elapsed = (System.nanoTime() - start) / 1e9;
+    System.out.printf("%d steps, %.1f simulated seconds in %.2f s (%.1fx real time), %d divergent reads%n",
+                      platform.getStepCount(), platform.getTime(), elapsed, platform.getTime() / elapsed,
+                      platform.getDivergences());
+  }
+
+  public ReplayPlatform(File file) throws IOException {
+    log = new SensorLog.Reader(file);
+    cursor = log.start();
+    load();  // values read before the first step: the constructors
+  }
+
+  // start the replay at the first step at or after a simulation time
+  public void seek(double seconds) {
+    int index = log.findStep(seconds);
+    if (index >= log.getStepCount()) {
+      cursor = -1;
+      return;
+    }
+    cursor = log.getStepOffset(index);
+    step = index - 1;
+    step(0);
+  }
+
+  // index of the current step in the log, -1 before the first one
+  public int getStep() {
+    return step;
+  }
+
+  public int getStepCount() {
+    return log.getStepCount();
+  }
+
+  // number of reads that found no recorded value
+  public long getDivergences() {
+    return divergences;
+  }
+
+  // queue the records up to the next STEP record
+  private void load() {
+    Arrays.fill(counts, 0);
+    Arrays.fill(reads, 0);
+    while (cursor >= 0 && log.type(cursor) != SensorLog.STEP) {
+      byte type = log.type(cursor);
+      if (type != SensorLog.DEVICE) {
+        int device = log.device(cursor);
+        grow(device);
+        if (values[device] == null || counts[device] == values[device].length)
+          values[device] = Arrays.copyOf(values[device] == null ? new int[0] : values[device],
+                                         Math.max(4, 2 * counts[device]));
+        values[device][counts[device]++] = cursor;
+      }
+      cursor = log.next(cursor + SensorLog.HEADER_SIZE + log.length(cursor));
+    }
+  }
+
+  private void grow(int device) {
+    if (device < values.length)
+      return;
+    int size = Math.max(device + 1, 2 * values.length);
+    values = Arrays.copyOf(values, size);
+    counts = Arrays.copyOf(counts, size);
+    reads = Arrays.copyOf(reads, size);
+    int old = last.length;
+    last = Arrays.copyOf(last, size);
+    Arrays.fill(last, old, size, -1);
+  }
+
+  // offset of the next value of an id, -1 if it never had any. The devices
+  // missing from the log have the id -1: their values fall in the first block,
+  // that of the STEP records, which never has values
+  private int read(int device) {
+    device = Math.max(device, 0);
+    grow(device);
+    if (reads[device] < counts[device])
+      last[device] = values[device][reads[device]++];
+    else
+      divergences++;
+    return last[device];
+  }
+
+  private int readInt(int device) {
+    int offset = read(device);
+    return offset < 0 ? 0 : log.getInt(offset);
+  }
+
+  private boolean readBoolean(int device) {
+    return readInt(device) != 0;
+  }
+
+  private double readDouble(int device) {
+    int offset = read(device);
+    return offset < 0 ? 0.0 : log.getDouble(offset);
+  }
+
+  private double[] readDoubles(int device) {
+    int offset = read(device);
+    return offset < 0 ? null : log.getDoubles(offset);
+  }
+
+  private int[] readInts(int device) {
+    int offset = read(device);
+    return offset < 0 ? null : log.getInts(offset);
+  }
+
+  private byte[] readBytes(int device) {
+    int offset = read(device);
+    return offset < 0 ? null : log.bytes(offset);
+  }
+
+  // the simulated time comes from the log, ms is ignored
+  @Override public int step(int ms) {
+    if (cursor < 0)
+      return -1;
+    step++;
+    time = log.getDouble(cursor);
+    cursor = log.next(cursor + SensorLog.HEADER_SIZE + log.length(cursor));
+    load();
+    return 0;
+  }
+
+  @Override public double getTime() {
+    return time;
+  }
+
+  @Override public Camera getCamera(String name) {
+    final int id = log.deviceId("camera:" + name);
+    return new Camera() {
+      public void enable(int samplingPeriod) {}
+      public void disable() {}
+      public int getSamplingPeriod() { return readInt(id + 0); }
+      public int[] getImage() { return readInts(id + 1); }
+      public int getWidth() { return readInt(id + 2); }
+      public int getHeight() { return readInt(id + 3); }
+      public double getFov() { return readDouble(id + 4); }
+    };
+  }
+
+  @Override public Motor getMotor(String name) {
+    final int id = log.deviceId("motor:" + name);
+    return new Motor() {
+      public void setPosition(double position) {}
+      public double getMinPosition() { return readDouble(id + 0); }
+      public double getMaxPosition() { return readDouble(id + 1); }
+    };
+  }
+
+  @Override public PositionSensor getPositionSensor(String name) {
+    final int id = log.deviceId("position:" + name);
+    return new PositionSensor() {
+      public void enable(int samplingPeriod) {}
+      public double getValue() { return readDouble(id + 0); }
+    };
+  }
+
+  @Override public Accelerometer getAccelerometer(String name) {
+    final int id = log.deviceId("accelerometer:" + name);
+    return new Accelerometer() {
+      public void enable(int samplingPeriod) {}
+      public double[] getValues() { return readDoubles(id + 0); }
+    };
+  }
+
+  @Override public Gyro getGyro(String name) {
+    final int id = log.deviceId("gyro:" + name);
+    return new Gyro() {
+      public void enable(int samplingPeriod) {}
+      public double[] getValues() { return readDoubles(id + 0); }
+    };
+  }
+
+  @Override public InertialUnit getInertialUnit(String name) {
+    final int id = log.deviceId("inertial:" + name);
+    return new InertialUnit() {
+      public void enable(int samplingPeriod) {}
+      public double[] getRollPitchYaw() { return readDoubles(id + 0); }
+    };
+  }
+
+  @Override public DistanceSensor getDistanceSensor(String name) {
+    final int id = log.deviceId("distance:" + name);
+    return new DistanceSensor() {
+      public void enable(int samplingPeriod) {}
+      public double getValue() { return readDouble(id + 0); }
+    };
+  }
+
+  @Override public LED getLED(String name) {
+    return new LED() {
+      public void set(int value) {}
+    };
+  }
+
+  @Override public TouchSensor getTouchSensor(String name) {
+    final int id = log.deviceId("touch:" + name);
+    return new TouchSensor() {
+      public void enable(int samplingPeriod) {}
+      public double getValue() { return readDouble(id + 0); }
+    };
+  }
+
+  @Override public Emitter getEmitter(String name) {
+    final int id = log.deviceId("emitter:" + name);
+    return new Emitter() {
+      public int send(byte[] data) { return readInt(id + 0); }
+    };
+  }
+
+  @Override public Receiver getReceiver(String name) {
+    final int id = log.deviceId("receiver:" + name);
+    return new Receiver() {
+      public void enable(int samplingPeriod) {}
+      public int getQueueLength() { return readInt(id + 0); }
+      public byte[] getData() { return readBytes(id + 1); }
+      public void nextPacket() {}
+    };
+  }
+
+  @Override public GPS getGPS(String name) {
+    final int id = log.deviceId("gps:" + name);
+    return new GPS() {
+      public void enable(int samplingPeriod) {}
+      public double[] getValues() { return readDoubles(id + 0); }
+    };
+  }
+
+  @Override public Motion getMotion(final String name) {
+    Motion motion = motions.get(name);
+    if (motion == null) {
+      final int id = log.deviceId("motion:" + name);
+      motion = new Motion() {
+        public String getName() { return name; }
+        public boolean isValid() { return readBoolean(id + 0); }
+        public void play() {}
+        public void stop() {}
+        public boolean isOver() { return readBoolean(id + 1); }
+        public int getTime() { return readInt(id + 2); }
+        public void setTime(int time) {}
+        public int getDuration() { return readInt(id + 3); }
+      };
+      motions.put(name, motion);
+    }
+    return motion;
+  }
+}
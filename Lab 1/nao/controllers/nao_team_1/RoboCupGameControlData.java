@@ -2,13 +2,11 @@
 //  File:         RoboCupGameControlData.java (to be used in a Webots java controllers)
 //  Date:         May 20, 2008
 //  Description:  For decoding the bytes of a RoboCupGameControlData struct sent by nao_soccer_supervisor.c
+//                The fields are decoded on demand from a copy of the last packet.
 //  Project:      Robotstadium, the online robot soccer competition
 //  Author:       Yvan Bourquin - www.cyberbotics.com
 //---------------------------------------------------------------------------------------
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-
 public class RoboCupGameControlData {
 
   // team colours
@@ -26,68 +24,141 @@ public class RoboCupGameControlData {
   public static final byte STATE2_NORMAL       = 0;
   public static final byte STATE2_PENALTYSHOOT = 1;
 
-  private byte playersPerTeam;
-  private byte state = STATE_PLAYING;
-  private byte firstHalf;
-  private byte kickOffTeam;
-  private byte secondaryState;
-  private int secsRemaining;
-  private TeamInfo[] teams = new TeamInfo[2];  // two Teams: red and a blue
-  private float ballPosX;
-  private float ballPosZ;
+  // layout of the struct (little endian)
+  public static final int SIZE = 68;
+  private static final int PLAYERS_PER_TEAM = 8;
+  private static final int STATE = 9;
+  private static final int FIRST_HALF = 10;
+  private static final int KICK_OFF_TEAM = 11;
+  private static final int SECONDARY_STATE = 12;
+  private static final int SECS_REMAINING = 16;
+  private static final int TEAMS = 20;
+  private static final int BALL_POS_X = 60;
+  private static final int BALL_POS_Z = 64;
+
+  // called by update() for the fields that changed, and for all of them on the first packet
+  public interface Listener {
+    default void gameStateChanged(byte state) {}
+    default void kickOffTeamChanged(byte team) {}
+    default void teamsChanged() {}  // team numbers or colours
+    default void scoreChanged(byte team, short score) {}
+    default void penaltyChanged(byte team, int player, short penalty) {}
+  }
+
+  // the last packet, the getters decode the fields from it when called
+  private final byte[] bytes = new byte[SIZE];
+  private final TeamInfo[] teams = new TeamInfo[2];  // two Teams: red and a blue
+  private boolean received;
+  private Listener listener;
 
   public RoboCupGameControlData() {
-    teams[0] = new TeamInfo(TEAM_BLUE);
-    teams[1] = new TeamInfo(TEAM_RED);
+    teams[0] = new TeamInfo(bytes, TEAMS);
+    teams[1] = new TeamInfo(bytes, TEAMS + TeamInfo.SIZE);
+    // until the first packet: playing, blue and red teams
+    bytes[STATE] = STATE_PLAYING;
+    bytes[TEAMS + TeamInfo.SIZE + TeamInfo.TEAM_COLOUR] = TEAM_RED;
   }
 
   static boolean hasValidHeader(byte[] bytes) {
     return bytes[0] == 82 && bytes[1] == 71 && bytes[2] == 109 && bytes[3] == 101;
   }
 
-  public void update(byte[] bytes) {
-    ByteBuffer buffer = ByteBuffer.allocate(bytes.length);
-    buffer.order(ByteOrder.LITTLE_ENDIAN);
-    buffer.put(bytes);
-    buffer.rewind();  // start from the beginning
-    buffer.getInt();  // skip header (4 bytes)
-    buffer.getInt();  // skip unused struct version number
-    playersPerTeam = buffer.get();
-    state = buffer.get();
-    firstHalf = buffer.get();
-    kickOffTeam = buffer.get();
-    secondaryState = buffer.get();
-    buffer.get();       // skip unsupported dropInTeam
-    buffer.getShort();  // skip unsupported dropInTime
-    secsRemaining = buffer.getInt();
-    teams[0].readBytes(buffer);
-    teams[1].readBytes(buffer);
-    ballPosX = buffer.getFloat();
-    ballPosZ = buffer.getFloat();
+  public void setListener(Listener listener) {
+    this.listener = listener;
+  }
+
+  // take a new packet, nothing is allocated
+  // return false if it is too short or identical to the last one
+  public boolean update(byte[] packet) {
+    if (packet.length < SIZE)
+      return false;
+    if (received && same(packet))
+      return false;
+
+    boolean first = ! received;
+    byte oldState = getState(), oldKickOffTeam = getKickOffTeam();
+    short oldScore0 = teams[0].getScore(), oldScore1 = teams[1].getScore();
+    boolean teamsChanged = first || changed(packet, TEAMS + TeamInfo.TEAM_NUMBER, 2) || changed(packet, TEAMS + TeamInfo.SIZE + TeamInfo.TEAM_NUMBER, 2);
+    int penalties = first ? -1 : changedPenalties(packet);
+
+    System.arraycopy(packet, 0, bytes, 0, SIZE);
+    received = true;
+
+    if (listener == null)
+      return true;
+    if (teamsChanged)
+      listener.teamsChanged();
+    if (first || getState() != oldState)
+      listener.gameStateChanged(getState());
+    if (first || getKickOffTeam() != oldKickOffTeam)
+      listener.kickOffTeamChanged(getKickOffTeam());
+    if (first || teams[0].getScore() != oldScore0)
+      listener.scoreChanged((byte)0, teams[0].getScore());
+    if (first || teams[1].getScore() != oldScore1)
+      listener.scoreChanged((byte)1, teams[1].getScore());
+    for (int i = 0; i < 2 * TeamInfo.MAX_NUM_PLAYERS; i++)
+      if ((penalties & (1 << i)) != 0)
+        listener.penaltyChanged((byte)(i / TeamInfo.MAX_NUM_PLAYERS), i % TeamInfo.MAX_NUM_PLAYERS,
+                                teams[i / TeamInfo.MAX_NUM_PLAYERS].getPlayer(i % TeamInfo.MAX_NUM_PLAYERS).getPenalty());
+    return true;
+  }
+
+  private boolean same(byte[] packet) {
+    // compare from the end: the header and version never change
+    for (int i = SIZE - 1; i >= 0; i--)
+      if (packet[i] != bytes[i])
+        return false;
+    return true;
+  }
+
+  private boolean changed(byte[] packet, int offset, int length) {
+    for (int i = offset; i < offset + length; i++)
+      if (packet[i] != bytes[i])
+        return true;
+    return false;
+  }
+
+  // bit (team * MAX_NUM_PLAYERS + player) is set for each penalty that changed
+  private int changedPenalties(byte[] packet) {
+    int mask = 0;
+    for (int i = 0; i < 2 * TeamInfo.MAX_NUM_PLAYERS; i++) {
+      int offset = TEAMS + (i / TeamInfo.MAX_NUM_PLAYERS) * TeamInfo.SIZE + TeamInfo.PLAYERS + (i % TeamInfo.MAX_NUM_PLAYERS) * RobotInfo.SIZE;
+      if (changed(packet, offset + RobotInfo.PENALTY, 2))
+        mask |= 1 << i;
+    }
+    return mask;
+  }
+
+  static short getShort(byte[] bytes, int offset) {
+    return (short)((bytes[offset] & 0xff) | (bytes[offset + 1] << 8));
+  }
+
+  static int getInt(byte[] bytes, int offset) {
+    return (bytes[offset] & 0xff) | (bytes[offset + 1] & 0xff) << 8 | (bytes[offset + 2] & 0xff) << 16 | bytes[offset + 3] << 24;
   }
 
   public byte getPlayersPerTeam() {
-    return playersPerTeam;
+    return bytes[PLAYERS_PER_TEAM];
   }
 
   public byte getState() {
-    return state;
+    return bytes[STATE];
   }
 
   public byte getFirstHalf() {
-    return firstHalf;
+    return bytes[FIRST_HALF];
   }
 
   public byte getKickOffTeam() {
-    return kickOffTeam;
+    return bytes[KICK_OFF_TEAM];
   }
 
   public byte getSecondaryState() {
-    return secondaryState;
+    return bytes[SECONDARY_STATE];
   }
 
   public int getSecsRemaining() {
-    return secsRemaining;
+    return getInt(bytes, SECS_REMAINING);
   }
 
   // return the specified team (0 = blue, 1 = red)
@@ -98,27 +169,27 @@ public class RoboCupGameControlData {
   // getBallPosX() and getBallPosZ() will be disabled during contest matches
   // they should be used for training purposes only
   public float getBallPosX() {
-    return ballPosX;
+    return Float.intBitsToFloat(getInt(bytes, BALL_POS_X));
   }
 
   public float getBallPosZ() {
-    return ballPosZ;
+    return Float.intBitsToFloat(getInt(bytes, BALL_POS_Z));
   }
 
   @Override public String toString() {
     StringBuilder result = new StringBuilder();
     String NEW_LINE = System.getProperty("line.separator");
     result.append(this.getClass().getName() + " Object {" + NEW_LINE);
-    result.append(" playersPerTeam: " + playersPerTeam + NEW_LINE);
-    result.append(" state: " + state + NEW_LINE);
-    result.append(" firstHalf: " + firstHalf + NEW_LINE );
-    result.append(" kickOffTeam: " + kickOffTeam + NEW_LINE);
-    result.append(" secondaryState: " + secondaryState + NEW_LINE);
-    result.append(" secsRemaining: " + secsRemaining + NEW_LINE);
+    result.append(" playersPerTeam: " + getPlayersPerTeam() + NEW_LINE);
+    result.append(" state: " + getState() + NEW_LINE);
+    result.append(" firstHalf: " + getFirstHalf() + NEW_LINE );
+    result.append(" kickOffTeam: " + getKickOffTeam() + NEW_LINE);
+    result.append(" secondaryState: " + getSecondaryState() + NEW_LINE);
+    result.append(" secsRemaining: " + getSecsRemaining() + NEW_LINE);
     result.append(" teams[0]: " + teams[0] + NEW_LINE);
     result.append(" teams[1]: " + teams[1] + NEW_LINE);
-    result.append(" ballPosX: " + ballPosX + NEW_LINE);
-    result.append(" ballPosZ: " + ballPosZ + NEW_LINE);
+    result.append(" ballPosX: " + getBallPosX() + NEW_LINE);
+    result.append(" ballPosZ: " + getBallPosZ() + NEW_LINE);
     result.append("}");
     return result.toString();
   }
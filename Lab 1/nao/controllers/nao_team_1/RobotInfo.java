@@ -7,39 +7,40 @@
 //  Author:       Yvan Bourquin - www.cyberbotics.com
 //---------------------------------------------------------------------------------------
 
-import java.nio.ByteBuffer;
-
 public class RobotInfo {
 
   // penalties
   public static final short PENALTY_NONE = 0;
   public static final short PENALTY_ILLEGAL_DEFENDER = 4;
 
-  private short penalty;             // the penalty state of the robot
-  private short secsTillUnpenalise;  // estimated seconds till unpenalised
+  // layout of the struct, relative to its offset
+  static final int PENALTY = 0;
+  static final int SECS_TILL_UNPENALISED = 2;
+  static final int SIZE = 4;
 
-  public RobotInfo() {
-  }
+  private final byte[] bytes;  // packet of the RoboCupGameControlData
+  private final int offset;
 
-  public void readBytes(ByteBuffer buffer) {
-    penalty = buffer.getShort();
-    secsTillUnpenalise = buffer.getShort();
+  // view of the struct at offset in the bytes of a RoboCupGameControlData
+  RobotInfo(byte[] bytes, int offset) {
+    this.bytes = bytes;
+    this.offset = offset;
   }
 
-  public short getPenalty() {
-    return penalty;
+  public short getPenalty() {  // the penalty state of the robot
+    return RoboCupGameControlData.getShort(bytes, offset + PENALTY);
   }
 
-  public short getSecsTillUnpenalised() {
-      return secsTillUnpenalise;
+  public short getSecsTillUnpenalised() {  // estimated seconds till unpenalised
+      return RoboCupGameControlData.getShort(bytes, offset + SECS_TILL_UNPENALISED);
   }
 
   @Override public String toString() {
     StringBuilder result = new StringBuilder();
     String NEW_LINE = System.getProperty("line.separator");
     result.append(this.getClass().getName() + " Object {" + NEW_LINE);
-    result.append("   penalty: " + penalty + NEW_LINE);
-    result.append("   secsTillUnpenalise: " + secsTillUnpenalise + NEW_LINE);
+    result.append("   penalty: " + getPenalty() + NEW_LINE);
+    result.append("   secsTillUnpenalise: " + getSecsTillUnpenalised() + NEW_LINE);
     result.append("  }");
     return result.toString();
   }
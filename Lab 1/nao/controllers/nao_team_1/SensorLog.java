@@ -0,0 +1,279 @@
+//-----------------------------------------------------------------------------
+//  File:         SensorLog.java (to be used in a Webots java controllers)
+//  Date:         October 17, 2026
+//  Description:  Append-only binary log of the values read from the devices,
+//                written by RecordingPlatform and read by ReplayPlatform.
+//                The file is written through memory-mapped regions, so the records
+//                are in the page cache as soon as they are written and survive
+//                the controller being killed at the end of a match.
+//                Record: type (1 byte), device (2 bytes), payload length (4 bytes),
+//                payload, big endian. A zero type marks the end of the log.
+//  Project:      Robotstadium, the online robot soccer competition
+//-----------------------------------------------------------------------------
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+public class SensorLog {
+
+  // record types
+  public static final byte END = 0;
+  public static final byte STEP = 1;     // simulation time (double) after a step, device 0
+  public static final byte DEVICE = 2;   // device name (UTF-8), the first time it is used
+  public static final byte INT = 3;
+  public static final byte DOUBLE = 4;
+  public static final byte DOUBLES = 5;
+  public static final byte INTS = 6;     // camera image
+  public static final byte BYTES = 7;    // received packet
+  public static final byte NULL = 8;     // null array
+
+  public static final int HEADER_SIZE = 7;
+  private static final byte[] MAGIC = { 'N', 'S', 'L', '1' };
+
+  private SensorLog() {
+  }
+
+  public static class Writer {
+    private static final int REGION_SIZE = 4 << 20;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private MappedByteBuffer region;
+    private long regionStart;
+
+    public Writer(File file) throws IOException {
+      this.file = new RandomAccessFile(file, "rw");
+      this.file.setLength(0);
+      channel = this.file.getChannel();
+      map(0);
+      region.put(MAGIC);
+    }
+
+    private void map(long start) throws IOException {
+      regionStart = start;
+      region = channel.map(FileChannel.MapMode.READ_WRITE, start, REGION_SIZE);
+    }
+
+    // room for a record, in a new region if needed (records never span regions)
+    private void reserve(byte type, int device, int length) throws IOException {
+      if (HEADER_SIZE + length + HEADER_SIZE > REGION_SIZE)
+        throw new IOException("record of " + length + " bytes is too large");
+      if (region.remaining() < HEADER_SIZE + length + HEADER_SIZE) {
+        region.put(END);  // the reader continues in the next region
+        map(regionStart + REGION_SIZE);
+      }
+      region.put(type);
+      region.putShort((short)device);
+      region.putInt(length);
+    }
+
+    public void step(double time) throws IOException {
+      reserve(STEP, 0, 8);
+      region.putDouble(time);
+    }
+
+    public void device(int device, String name) throws IOException {
+      byte[] bytes = name.getBytes("UTF-8");
+      reserve(DEVICE, device, bytes.length);
+      region.put(bytes);
+    }
+
+    public void putInt(int device, int value) throws IOException {
+      reserve(INT, device, 4);
+      region.putInt(value);
+    }
+
+    public void putDouble(int device, double value) throws IOException {
+      reserve(DOUBLE, device, 8);
+      region.putDouble(value);
+    }
+
+    public void putDoubles(int device, double[] values) throws IOException {
+      if (values == null) {
+        reserve(NULL, device, 0);
+        return;
+      }
+      reserve(DOUBLES, device, 8 * values.length);
+      for (double value : values)
+        region.putDouble(value);
+    }
+
+    public void putInts(int device, int[] values) throws IOException {
+      if (values == null) {
+        reserve(NULL, device, 0);
+        return;
+      }
+      reserve(INTS, device, 4 * values.length);
+      region.asIntBuffer().put(values);
+      region.position(region.position() + 4 * values.length);
+    }
+
+    public void putBytes(int device, byte[] values) throws IOException {
+      if (values == null) {
+        reserve(NULL, device, 0);
+        return;
+      }
+      reserve(BYTES, device, values.length);
+      region.put(values);
+    }
+
+    // the rest of the last region stays zero: END
+    public void close() throws IOException {
+      region.force();
+      channel.close();
+      file.close();
+    }
+  }
+
+  // reads a log written by Writer, the whole file is mapped (up to 2 GB)
+  public static class Reader {
+    private final MappedByteBuffer buffer;
+    private String[] devices = new String[16];
+    private int[] stepOffsets = new int[1024];  // index: offset of each STEP record
+    private double[] stepTimes = new double[1024];
+    private int steps;
+    private int firstStep = -1;                 // offset of the first STEP record
+
+    public Reader(File file) throws IOException {
+      try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+        if (channel.size() > Integer.MAX_VALUE)
+          throw new IOException("log files larger than 2 GB are not supported");
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      }
+      byte[] magic = new byte[MAGIC.length];
+      buffer.get(magic);
+      if (! Arrays.equals(magic, MAGIC))
+        throw new IOException(file + " is not a sensor log");
+      buildIndex();
+    }
+
+    // one pass over the records: device names and STEP offsets by time
+    private void buildIndex() {
+      int offset = MAGIC.length;
+      while ((offset = next(offset)) >= 0) {
+        byte type = buffer.get(offset);
+        int device = buffer.getShort(offset + 1) & 0xffff;
+        if (type == DEVICE) {
+          if (device >= devices.length)
+            devices = Arrays.copyOf(devices, Math.max(device + 1, 2 * devices.length));
+          devices[device] = new String(bytes(offset), java.nio.charset.StandardCharsets.UTF_8);
+        }
+        else if (type == STEP) {
+          if (steps == stepOffsets.length) {
+            stepOffsets = Arrays.copyOf(stepOffsets, 2 * steps);
+            stepTimes = Arrays.copyOf(stepTimes, 2 * steps);
+          }
+          if (firstStep < 0)
+            firstStep = offset;
+          stepOffsets[steps] = offset;
+          stepTimes[steps] = buffer.getDouble(offset + HEADER_SIZE);
+          steps++;
+        }
+        offset += HEADER_SIZE + length(offset);
+      }
+    }
+
+    // offset of the record at or after offset, skipping the end of the regions, -1 at the end
+    public int next(int offset) {
+      while (offset + HEADER_SIZE <= buffer.limit()) {
+        if (buffer.get(offset) != END)
+          return offset;
+        // END: the next region starts at the next multiple of the region size
+        int nextRegion = (offset / Writer.REGION_SIZE + 1) * Writer.REGION_SIZE;
+        if (nextRegion + HEADER_SIZE > buffer.limit() || buffer.get(nextRegion) == END)
+          return -1;
+        offset = nextRegion;
+      }
+      return -1;
+    }
+
+    // offset of the first record, before any step: values read by the constructors
+    public int start() {
+      return next(MAGIC.length);
+    }
+
+    public byte type(int offset) {
+      return buffer.get(offset);
+    }
+
+    public int device(int offset) {
+      return buffer.getShort(offset + 1) & 0xffff;
+    }
+
+    public int length(int offset) {
+      return buffer.getInt(offset + 3);
+    }
+
+    // id of a device name, -1 if it was never used while recording
+    public int deviceId(String name) {
+      for (int i = 0; i < devices.length; i++)
+        if (name.equals(devices[i]))
+          return i;
+      return -1;
+    }
+
+    public int getStepCount() {
+      return steps;
+    }
+
+    public double getStepTime(int step) {
+      return stepTimes[step];
+    }
+
+    public int getStepOffset(int step) {
+      return stepOffsets[step];
+    }
+
+    // first step at or after a simulation time (binary search in the index)
+    public int findStep(double time) {
+      int low = 0, high = steps;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (stepTimes[middle] < time)
+          low = middle + 1;
+        else
+          high = middle;
+      }
+      return low;
+    }
+
+    public int getInt(int offset) {
+      return buffer.getInt(offset + HEADER_SIZE);
+    }
+
+    public double getDouble(int offset) {
+      return buffer.getDouble(offset + HEADER_SIZE);
+    }
+
+    public double[] getDoubles(int offset) {
+      if (type(offset) == NULL)
+        return null;
+      double[] values = new double[length(offset) / 8];
+      for (int i = 0; i < values.length; i++)
+        values[i] = buffer.getDouble(offset + HEADER_SIZE + 8 * i);
+      return values;
+    }
+
+    public int[] getInts(int offset) {
+      if (type(offset) == NULL)
+        return null;
+      int[] values = new int[length(offset) / 4];
+      for (int i = 0; i < values.length; i++)
+        values[i] = buffer.getInt(offset + HEADER_SIZE + 4 * i);
+      return values;
+    }
+
+    public byte[] bytes(int offset) {
+      if (type(offset) == NULL)
+        return null;
+      byte[] values = new byte[length(offset)];
+      for (int i = 0; i < values.length; i++)
+        values[i] = buffer.get(offset + HEADER_SIZE + i);
+      return values;
+    }
+  }
+}
@@ -9,6 +9,9 @@
 //                May 3, 2010: Changed how teamID and playerID are determined
 //---------------------------------------------------------------------------------------
 
+import java.io.File;
+import java.io.IOException;
+
 public class SoccerPlayer {
 
   public static void main(String[] args) {
@@ -17,10 +20,41 @@ public class SoccerPlayer {
     int playerID = Integer.parseInt(args[0]);
     int teamID   = Integer.parseInt(args[1]);
 
+    // the robot and devices of Webots, wrapped below as the environment asks
+    Platform platform = new WebotsPlatform();
+
+    // NAO_MOTION_SPEED=<speed>: play the motions with MotionEngine at this playback speed
+    String motionSpeed = System.getenv("NAO_MOTION_SPEED");
+    if (motionSpeed != null) {
+      try {
+        platform = new KeyframePlatform(platform, Double.parseDouble(motionSpeed));
+      }
+      catch (NumberFormatException e) {
+        System.out.println("SoccerPlayer: invalid NAO_MOTION_SPEED: " + motionSpeed);
+      }
+    }
+
+    // NAO_RECORD=<directory>: record the sensors for ReplayPlatform
+    String recordDir = System.getenv("NAO_RECORD");
+    if (recordDir != null) {
+      File file = new File(recordDir, "team" + teamID + "_player" + playerID + ".log");
+      try {
+        platform = new RecordingPlatform(platform, file);
+      }
+      catch (IOException e) {
+        System.out.println("SoccerPlayer: cannot record to " + file + ": " + e.getMessage());
+      }
+    }
+
     // choose GoalKepper/FieldPlayer role according to playerID
-    if (playerID == 0)
-      new GoalKeeper(playerID, teamID).run();
-    else
-      new FieldPlayer(playerID, teamID).run();
+    try {
+      if (playerID == 0)
+        new GoalKeeper(platform, playerID, teamID).run();
+      else
+        new FieldPlayer(platform, playerID, teamID).run();
+    }
+    catch (Platform.Terminated e) {
+      // Webots ended the simulation
+    }
   }
 }
@@ -0,0 +1,89 @@
+//-----------------------------------------------------------------------------
+//  File:         SupervisorCommands.java (to be used in a Webots java controllers)
+//  Date:         October 17, 2026
+//  Description:  Batch of binary 'move' commands for nao_soccer_supervisor.c
+//                Packet: "MCmd", version, number of commands, then for each command
+//                a command byte and its arguments, doubles are 8 bytes little endian.
+//                The commands are sent together by flush(), at most one packet
+//                per step, and executed by the supervisor only in DEMO matches.
+//  Project:      Robotstadium, the online robot soccer competition
+//-----------------------------------------------------------------------------
+
+import java.util.Arrays;
+
+public class SupervisorCommands {
+
+  public static final byte VERSION = 1;
+  public static final byte MOVE_ROBOT = 1;  // playerID, teamID (1 byte each), tx, ty, tz, alpha
+  public static final byte MOVE_BALL = 2;   // tx, ty, tz
+  private static final int HEADER_SIZE = 6;
+  private static final int MOVE_ROBOT_SIZE = 35;
+  private static final int MOVE_BALL_SIZE = 25;
+  private static final int MAX_SIZE = 1024;
+
+  private final Platform.Emitter emitter;
+  private final byte[] bytes = new byte[MAX_SIZE];
+  private int size = HEADER_SIZE;
+  private int count;
+
+  public SupervisorCommands(Platform.Emitter emitter) {
+    this.emitter = emitter;
+    bytes[0] = 'M';
+    bytes[1] = 'C';
+    bytes[2] = 'm';
+    bytes[3] = 'd';
+    bytes[4] = VERSION;
+  }
+
+  // move a robot: [tx ty tz] its new position, alpha its heading direction
+  public void moveRobot(int playerID, int teamID, double tx, double ty, double tz, double alpha) {
+    reserve(MOVE_ROBOT_SIZE);
+    bytes[size] = MOVE_ROBOT;
+    bytes[size + 1] = (byte)playerID;
+    bytes[size + 2] = (byte)teamID;
+    putDouble(size + 3, tx);
+    putDouble(size + 11, ty);
+    putDouble(size + 19, tz);
+    putDouble(size + 27, alpha);
+    size += MOVE_ROBOT_SIZE;
+    count++;
+  }
+
+  // move the ball: [tx ty tz] its new position
+  public void moveBall(double tx, double ty, double tz) {
+    reserve(MOVE_BALL_SIZE);
+    bytes[size] = MOVE_BALL;
+    putDouble(size + 1, tx);
+    putDouble(size + 9, ty);
+    putDouble(size + 17, tz);
+    size += MOVE_BALL_SIZE;
+    count++;
+  }
+
+  // number of commands waiting for flush()
+  public int getCount() {
+    return count;
+  }
+
+  // send the pending commands as one packet
+  public void flush() {
+    if (count == 0)
+      return;
+    bytes[5] = (byte)count;
+    emitter.send(Arrays.copyOf(bytes, size));  // the emitter sends the whole array
+    size = HEADER_SIZE;
+    count = 0;
+  }
+
+  // flush early when the packet is full
+  private void reserve(int commandSize) {
+    if (size + commandSize > MAX_SIZE || count == 255)
+      flush();
+  }
+
+  private void putDouble(int offset, double value) {
+    long bits = Double.doubleToLongBits(value);
+    for (int i = 0; i < 8; i++)
+      bytes[offset + i] = (byte)(bits >> (8 * i));
+  }
+}
@@ -7,31 +7,29 @@
 //  Author:       Yvan Bourquin - www.cyberbotics.com
 //---------------------------------------------------------------------------------------
 
-import java.nio.ByteBuffer;
-
 public class TeamInfo {
 
   public static final int MAX_NUM_PLAYERS = 4;
 
-  private byte teamNumber;
-  private byte teamColour;
-  private short score;
+  // layout of the struct, relative to its offset
+  static final int TEAM_NUMBER = 0;
+  static final int TEAM_COLOUR = 1;
+  static final int SCORE = 2;
+  static final int PLAYERS = 4;
+  static final int SIZE = PLAYERS + MAX_NUM_PLAYERS * RobotInfo.SIZE;
+
+  private final byte[] bytes;  // packet of the RoboCupGameControlData
+  private final int offset;
 
   // each team has max 4 players
   private RobotInfo[] players = new RobotInfo[MAX_NUM_PLAYERS];
 
-  public TeamInfo(byte teamColour) {
-    this.teamColour = teamColour;
+  // view of the struct at offset in the bytes of a RoboCupGameControlData
+  TeamInfo(byte[] bytes, int offset) {
+    this.bytes = bytes;
+    this.offset = offset;
     for (int i = 0; i < MAX_NUM_PLAYERS; i++)
-      players[i] = new RobotInfo();
-  }
-
-  public void readBytes(ByteBuffer buffer) {
-    teamNumber = buffer.get();
-    teamColour = buffer.get();
-    score = buffer.getShort();
-    for (int i = 0; i < MAX_NUM_PLAYERS; i++)
-      players[i].readBytes(buffer);
+      players[i] = new RobotInfo(bytes, offset + PLAYERS + i * RobotInfo.SIZE);
   }
 
   // get the robots in the team, return as an array
@@ -39,24 +37,28 @@ public class TeamInfo {
     return players;
   }
   
+  public RobotInfo getPlayer(int player) {
+    return players[player];
+  }
+
   public byte getTeamNumber() {
-    return teamNumber;
+    return bytes[offset + TEAM_NUMBER];
   }
 
   public byte getTeamColour() {
-    return teamColour;
+    return bytes[offset + TEAM_COLOUR];
   }
 
   public short getScore() {
-    return score;
+    return RoboCupGameControlData.getShort(bytes, offset + SCORE);
   }
 
   @Override public String toString() {
     StringBuilder result = new StringBuilder();
     String NEW_LINE = System.getProperty("line.separator");
     result.append(this.getClass().getName() + " Object {" + NEW_LINE);
-    result.append("  teamColour: " + teamColour + NEW_LINE);
-    result.append("  score: " + score + NEW_LINE);
+    result.append("  teamColour: " + getTeamColour() + NEW_LINE);
+    result.append("  score: " + getScore() + NEW_LINE);
     result.append(" }");
     return result.toString();
   }
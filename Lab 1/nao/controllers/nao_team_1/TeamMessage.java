@@ -0,0 +1,173 @@
+//-----------------------------------------------------------------------------
+//  File:         TeamMessage.java (to be used in a Webots java controllers)
+//  Date:         October 17, 2026
+//  Description:  Fixed layout binary message exchanged by the players of a team
+//                over the emitter/receiver pair: pose, ball estimate and role.
+//                Positions are in the field frame of Localization (x towards the
+//                goal the team attacks), little endian like RoboCupGameControlData.
+//                A TeamMessage is reused: encode() and decode() allocate nothing.
+//  Project:      Robotstadium, the online robot soccer competition
+//-----------------------------------------------------------------------------
+
+public class TeamMessage {
+
+  public static final byte VERSION = 1;
+
+  // roles
+  public static final byte ROLE_GOALKEEPER = 0;
+  public static final byte ROLE_STRIKER    = 1;
+  public static final byte ROLE_SUPPORTER  = 2;
+  public static final byte ROLE_DEFENDER   = 3;
+
+  // flags
+  public static final int BALL_VALID = 1;  // ball position is known
+  public static final int LOCALIZED  = 2;  // pose is known
+  public static final int FALLEN     = 4;
+
+  // layout
+  public static final int SIZE = 44;
+  private static final int HEADER = 0;           // 'T' 'm' 's' 'g'
+  private static final int VERSION_BYTE = 4;
+  private static final int TEAM = 5;
+  private static final int PLAYER = 6;
+  private static final int ROLE = 7;
+  private static final int FLAGS = 8;
+  private static final int SEQUENCE = 10;        // short
+  private static final int TIME = 12;            // int, milliseconds
+  private static final int POSE_X = 16;          // floats
+  private static final int POSE_Y = 20;
+  private static final int POSE_THETA = 24;
+  private static final int BALL_X = 28;
+  private static final int BALL_Y = 32;
+  private static final int BALL_AGE = 36;        // seconds since the ball was seen
+  private static final int BALL_STD = 40;        // m
+
+  private final byte[] bytes = new byte[SIZE];
+  private boolean received;  // decode() was called at least once
+
+  public TeamMessage() {
+    bytes[HEADER] = 'T';
+    bytes[HEADER + 1] = 'm';
+    bytes[HEADER + 2] = 's';
+    bytes[HEADER + 3] = 'g';
+    bytes[VERSION_BYTE] = VERSION;
+  }
+
+  static boolean hasValidHeader(byte[] data) {
+    return data.length >= SIZE && data[HEADER] == 'T' && data[HEADER + 1] == 'm' && data[HEADER + 2] == 's' && data[HEADER + 3] == 'g'
+      && data[VERSION_BYTE] == VERSION;
+  }
+
+  // sender of a message that has a valid header
+  static int getTeam(byte[] data) {
+    return data[TEAM];
+  }
+
+  static int getPlayer(byte[] data) {
+    return data[PLAYER];
+  }
+
+  // copy a received message, see hasValidHeader()
+  public void decode(byte[] data) {
+    System.arraycopy(data, 0, bytes, 0, SIZE);
+    received = true;
+  }
+
+  // the bytes to send, valid until the next encode()
+  public byte[] encode(int team, int player, int role, int flags, int sequence, double time,
+                       double poseX, double poseY, double poseTheta,
+                       double ballX, double ballY, double ballAge, double ballStd) {
+    bytes[TEAM] = (byte)team;
+    bytes[PLAYER] = (byte)player;
+    bytes[ROLE] = (byte)role;
+    bytes[FLAGS] = (byte)flags;
+    putShort(SEQUENCE, sequence);
+    putInt(TIME, (int)Math.round(time * 1000.0));
+    putFloat(POSE_X, poseX);
+    putFloat(POSE_Y, poseY);
+    putFloat(POSE_THETA, poseTheta);
+    putFloat(BALL_X, ballX);
+    putFloat(BALL_Y, ballY);
+    putFloat(BALL_AGE, ballAge);
+    putFloat(BALL_STD, ballStd);
+    return bytes;
+  }
+
+  private void putShort(int offset, int value) {
+    bytes[offset] = (byte)value;
+    bytes[offset + 1] = (byte)(value >> 8);
+  }
+
+  private void putInt(int offset, int value) {
+    bytes[offset] = (byte)value;
+    bytes[offset + 1] = (byte)(value >> 8);
+    bytes[offset + 2] = (byte)(value >> 16);
+    bytes[offset + 3] = (byte)(value >> 24);
+  }
+
+  private void putFloat(int offset, double value) {
+    putInt(offset, Float.floatToIntBits((float)value));
+  }
+
+  private float getFloat(int offset) {
+    return Float.intBitsToFloat(RoboCupGameControlData.getInt(bytes, offset));
+  }
+
+  public boolean isReceived() {
+    return received;
+  }
+
+  public int getTeam() {
+    return bytes[TEAM];
+  }
+
+  public int getPlayer() {
+    return bytes[PLAYER];
+  }
+
+  public int getRole() {
+    return bytes[ROLE];
+  }
+
+  public boolean hasFlag(int flag) {
+    return (bytes[FLAGS] & flag) != 0;
+  }
+
+  public int getSequence() {
+    return RoboCupGameControlData.getShort(bytes, SEQUENCE) & 0xffff;
+  }
+
+  // simulation time of the sender when the message was sent (seconds)
+  public double getTime() {
+    return RoboCupGameControlData.getInt(bytes, TIME) / 1000.0;
+  }
+
+  public double getPoseX() {
+    return getFloat(POSE_X);
+  }
+
+  public double getPoseY() {
+    return getFloat(POSE_Y);
+  }
+
+  public double getPoseTheta() {
+    return getFloat(POSE_THETA);
+  }
+
+  public double getBallX() {
+    return getFloat(BALL_X);
+  }
+
+  public double getBallY() {
+    return getFloat(BALL_Y);
+  }
+
+  // simulation time when the ball was last seen by the sender
+  public double getBallTime() {
+    return getTime() - getFloat(BALL_AGE);
+  }
+
+  public double getBallStd() {
+    return getFloat(BALL_STD);
+  }
+}
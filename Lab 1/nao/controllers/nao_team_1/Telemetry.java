@@ -0,0 +1,223 @@
+//-----------------------------------------------------------------------------
+//  File:         Telemetry.java (to be used in a Webots java controllers)
+//  Date:         October 17, 2026
+//  Description:  Events of the control loop (ball estimate, search, shots,
+//                camera switches, falls...) with a fixed binary schema.
+//                log() copies the event into a lock-free ring buffer and returns,
+//                a background thread writes the events to a file, or prints them
+//                as text when there is no file. When the ring is full the event
+//                is dropped and counted, the control thread never waits.
+//                Decoder: java Telemetry <file>
+//  Project:      Robotstadium, the online robot soccer competition
+//-----------------------------------------------------------------------------
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public class Telemetry {
+
+  // event types, the meaning of the arguments a, b, c is given by describe()
+  public static final int BALL_ESTIMATE = 1;   // distance, direction, goal direction
+  public static final int SEARCHING_BALL = 2;
+  // 3 is not used any more (the short distance branch, replaced by MotionPlanner)
+  public static final int SHOOT = 4;
+  public static final int NOT_SHOOTING = 5;
+  public static final int CAMERA_SWITCH = 6;   // 1 to the top camera, 0 to the bottom one
+  public static final int FALL = 7;            // Player.FALL_FRONT or Player.FALL_BACK
+  public static final int MISSING_MOTION = 8;  // no StandUpFromBack, StandUpFromFront is used
+
+  // file: MAGIC, then records of RECORD_SIZE bytes: time, type, a, b, c (big endian)
+  private static final int MAGIC = 0x546c6d31;  // "Tlm1"
+  public static final int RECORD_SIZE = 36;
+
+  private static final int CAPACITY = 4096;    // events, a power of two
+  private static final int FIELDS = 5;         // longs per event: time, type, a, b, c
+  private static final long IDLE_NANOS = 10000000L;
+
+  private final long[] ring = new long[CAPACITY * FIELDS];
+  private final AtomicLong head = new AtomicLong();  // next event to drain, written by the drainer
+  private final AtomicLong tail = new AtomicLong();  // next free slot, written by log()
+  private final AtomicLong dropped = new AtomicLong();
+  private final DataOutputStream out;               // null: text on System.out
+  private final String prefix;
+  private final Thread drainer;                     // null: the events are discarded
+  private volatile boolean running = true;
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.out.println("usage: java Telemetry <file>");
+      return;
+    }
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(args[0])))) {
+      if (in.readInt() != MAGIC) {
+        System.out.println(args[0] + " is not a telemetry file");
+        return;
+      }
+      while (true) {
+        double time;
+        try {
+          time = in.readDouble();
+        }
+        catch (EOFException e) {
+          break;
+        }
+        int type = in.readInt();
+        double a = in.readDouble(), b = in.readDouble(), c = in.readDouble();
+        System.out.printf("%9.3f %s%n", time, describe(type, a, b, c));
+      }
+    }
+  }
+
+  // events discarded, e.g. during batch runs (see MatchRunner)
+  public Telemetry() {
+    out = null;
+    prefix = "";
+    drainer = null;
+    running = false;
+  }
+
+  // events printed as text on System.out, prefixed by prefix
+  public Telemetry(String prefix) {
+    this.out = null;
+    this.prefix = prefix;
+    drainer = start();
+  }
+
+  // events written to a file for the decoder
+  public Telemetry(File file) throws IOException {
+    out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+    out.writeInt(MAGIC);
+    prefix = "";
+    drainer = start();
+  }
+
+  private Thread start() {
+    Thread thread = new Thread(this::drain, "telemetry");
+    thread.setDaemon(true);
+    thread.start();
+    Runtime.getRuntime().addShutdownHook(new Thread(this::close));
+    return thread;
+  }
+
+  public void log(int type, double time) {
+    log(type, time, 0.0, 0.0, 0.0);
+  }
+
+  public void log(int type, double time, double a) {
+    log(type, time, a, 0.0, 0.0);
+  }
+
+  // single producer: to be called by the control thread only
+  public void log(int type, double time, double a, double b, double c) {
+    if (drainer == null)
+      return;
+    long t = tail.get();
+    if (t - head.get() >= CAPACITY) {
+      dropped.incrementAndGet();
+      return;
+    }
+    int i = (int)(t & (CAPACITY - 1)) * FIELDS;
+    ring[i] = Double.doubleToRawLongBits(time);
+    ring[i + 1] = type;
+    ring[i + 2] = Double.doubleToRawLongBits(a);
+    ring[i + 3] = Double.doubleToRawLongBits(b);
+    ring[i + 4] = Double.doubleToRawLongBits(c);
+    tail.lazySet(t + 1);  // publishes the event to the drainer
+  }
+
+  // events lost because the ring was full
+  public long getDropped() {
+    return dropped.get();
+  }
+
+  // write the pending events and stop the drainer
+  public void close() {
+    if (! running)
+      return;
+    running = false;
+    LockSupport.unpark(drainer);
+    try {
+      drainer.join(1000);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void drain() {
+    try {
+      while (running) {
+        if (! drainPending())
+          LockSupport.parkNanos(IDLE_NANOS);
+      }
+      drainPending();
+      if (dropped.get() > 0)
+        System.out.println(prefix + "telemetry: " + dropped.get() + " events dropped");
+      if (out != null)
+        out.close();
+    }
+    catch (IOException e) {
+      System.out.println(prefix + "telemetry: " + e.getMessage());
+    }
+  }
+
+  // return false if there was nothing to drain
+  private boolean drainPending() throws IOException {
+    long h = head.get();
+    long t = tail.get();
+    if (h == t)
+      return false;
+    for (; h < t; h++) {
+      int i = (int)(h & (CAPACITY - 1)) * FIELDS;
+      double time = Double.longBitsToDouble(ring[i]);
+      int type = (int)ring[i + 1];
+      double a = Double.longBitsToDouble(ring[i + 2]);
+      double b = Double.longBitsToDouble(ring[i + 3]);
+      double c = Double.longBitsToDouble(ring[i + 4]);
+      if (out != null) {
+        out.writeDouble(time);
+        out.writeInt(type);
+        out.writeDouble(a);
+        out.writeDouble(b);
+        out.writeDouble(c);
+      }
+      else
+        System.out.println(prefix + describe(type, a, b, c));
+    }
+    head.lazySet(t);  // frees the slots for log()
+    if (out != null)
+      out.flush();
+    return true;
+  }
+
+  // text of an event, as printed before the telemetry existed
+  public static String describe(int type, double a, double b, double c) {
+    switch (type) {
+      case BALL_ESTIMATE:
+        return "ball dist: " + a + " ball dir: " + b + " goal dir: " + c;
+      case SEARCHING_BALL:
+        return "searching the ball";
+      case SHOOT:
+        return "shooting !!!";
+      case NOT_SHOOTING:
+        return "I'm not gonna shoot yet!!!";
+      case CAMERA_SWITCH:
+        return "switched to " + (a != 0.0 ? "TOP" : "BOTTOM") + " camera";
+      case FALL:
+        return "fall detected: " + (a == Player.FALL_FRONT ? "front" : "back");
+      case MISSING_MOTION:
+        return "no StandUpFromBack motion, trying StandUpFromFront";
+      default:
+        return "unknown event " + type + " " + a + " " + b + " " + c;
+    }
+  }
+}
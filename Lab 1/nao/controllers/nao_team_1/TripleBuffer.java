@@ -0,0 +1,49 @@
+//-----------------------------------------------------------------------------
+//  File:         TripleBuffer.java (to be used in a Webots java controllers)
+//  Date:         October 17, 2026
+//  Description:  Lock-free single writer / single reader exchange of the latest
+//                value: the writer fills back(), then publish() swaps it with the
+//                shared buffer, the reader calls update() to get the newest one.
+//                Neither side ever waits for the other.
+//  Project:      Robotstadium, the online robot soccer competition
+//-----------------------------------------------------------------------------
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TripleBuffer<T> {
+
+  private static final int FRESH = 4;  // set in shared when it holds an unread value
+
+  private final Object[] buffers;
+  private final AtomicInteger shared = new AtomicInteger(1);
+  private int back = 0;   // owned by the writer
+  private int front = 2;  // owned by the reader
+
+  public TripleBuffer(T first, T second, T third) {
+    buffers = new Object[] { first, second, third };
+  }
+
+  // writer side
+  @SuppressWarnings("unchecked")
+  public T back() {
+    return (T)buffers[back];
+  }
+
+  public void publish() {
+    back = shared.getAndSet(back | FRESH) & 3;
+  }
+
+  // reader side: take the last published value if there is a new one
+  // return true if front() changed
+  public boolean update() {
+    if ((shared.get() & FRESH) == 0)
+      return false;
+    front = shared.getAndSet(front) & 3;
+    return true;
+  }
+
+  @SuppressWarnings("unchecked")
+  public T front() {
+    return (T)buffers[front];
+  }
+}
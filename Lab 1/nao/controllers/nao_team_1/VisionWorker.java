@@ -0,0 +1,76 @@
+//-----------------------------------------------------------------------------
+//  File:         VisionWorker.java (to be used in a Webots java controllers)
+//  Date:         October 17, 2026
+//  Description:  Runs the ImageAnalyzer on a dedicated thread
+//                The controller thread submits camera images and reads the latest
+//                completed Perception, without ever waiting for the analysis
+//  Project:      Robotstadium, the online robot soccer competition
+//-----------------------------------------------------------------------------
+
+import java.util.concurrent.locks.LockSupport;
+
+public class VisionWorker extends Thread {
+
+  // a camera image with everything needed to analyse it
+  private static class Frame {
+    int[] image;
+    int width, height;
+    double fov;
+    boolean topCamera;
+    double headYaw, headPitch;
+    double time;
+  }
+
+  private final ImageAnalyzer analyzer;
+  private final TripleBuffer<Frame> frames = new TripleBuffer<>(new Frame(), new Frame(), new Frame());
+  private final TripleBuffer<Perception> results = new TripleBuffer<>(new Perception(), new Perception(), new Perception());
+  private volatile boolean running = true;
+
+  public VisionWorker(ImageAnalyzer analyzer) {
+    super("VisionWorker");
+    this.analyzer = analyzer;
+    setDaemon(true);
+  }
+
+  // controller thread: hand over a new image, replacing any image not analysed yet
+  public void submit(int[] image, int width, int height, double fov, boolean topCamera,
+                     double headYaw, double headPitch, double time) {
+    Frame frame = frames.back();
+    frame.image = image;
+    frame.width = width;
+    frame.height = height;
+    frame.fov = fov;
+    frame.topCamera = topCamera;
+    frame.headYaw = headYaw;
+    frame.headPitch = headPitch;
+    frame.time = time;
+    frames.publish();
+    LockSupport.unpark(this);
+  }
+
+  // controller thread: latest completed perception (never blocks)
+  public Perception latest() {
+    results.update();
+    return results.front();
+  }
+
+  public void shutdown() {
+    running = false;
+    LockSupport.unpark(this);
+  }
+
+  @Override public void run() {
+    while (running) {
+      if (! frames.update()) {
+        LockSupport.park(this);
+        continue;
+      }
+      Frame frame = frames.front();
+      Perception out = results.back();
+      analyzer.analyze(frame.image, frame.width, frame.height, frame.fov, frame.topCamera,
+                       frame.headYaw, frame.headPitch, frame.time, out);
+      frame.image = null;  // let the image be garbage collected
+      results.publish();
+    }
+  }
+}
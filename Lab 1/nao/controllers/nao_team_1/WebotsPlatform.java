@@ -0,0 +1,150 @@
+//-----------------------------------------------------------------------------
+//  File:         WebotsPlatform.java (to be used in a Webots java controllers)
+//  Date:         October 17, 2026
+//  Description:  Platform of a robot simulated by Webots: each device is a thin
+//                wrapper calling the Webots device of the same name
+//  Project:      Robotstadium, the online robot soccer competition
+//-----------------------------------------------------------------------------
+
+import com.cyberbotics.webots.controller.Robot;
+import java.util.HashMap;
+
+public class WebotsPlatform implements Platform {
+
+  // the Webots types are fully qualified below because the Platform
+  // device interfaces have the same names
+  private final Robot robot = new Robot();
+  private final HashMap<String, Motion> motions = new HashMap<>();
+
+  @Override public int step(int ms) {
+    return robot.step(ms);
+  }
+
+  @Override public double getTime() {
+    return robot.getTime();
+  }
+
+  @Override public Camera getCamera(String name) {
+    final com.cyberbotics.webots.controller.Camera camera = robot.getCamera(name);
+    return new Camera() {
+      public void enable(int samplingPeriod) { camera.enable(samplingPeriod); }
+      public void disable() { camera.disable(); }
+      public int getSamplingPeriod() { return camera.getSamplingPeriod(); }
+      public int[] getImage() { return camera.getImage(); }
+      public int getWidth() { return camera.getWidth(); }
+      public int getHeight() { return camera.getHeight(); }
+      public double getFov() { return camera.getFov(); }
+    };
+  }
+
+  @Override public Motor getMotor(String name) {
+    final com.cyberbotics.webots.controller.Motor motor = robot.getMotor(name);
+    return new Motor() {
+      public void setPosition(double position) { motor.setPosition(position); }
+      public double getMinPosition() { return motor.getMinPosition(); }
+      public double getMaxPosition() { return motor.getMaxPosition(); }
+    };
+  }
+
+  @Override public PositionSensor getPositionSensor(String name) {
+    final com.cyberbotics.webots.controller.PositionSensor sensor = robot.getPositionSensor(name);
+    return new PositionSensor() {
+      public void enable(int samplingPeriod) { sensor.enable(samplingPeriod); }
+      public double getValue() { return sensor.getValue(); }
+    };
+  }
+
+  @Override public Accelerometer getAccelerometer(String name) {
+    final com.cyberbotics.webots.controller.Accelerometer sensor = robot.getAccelerometer(name);
+    return new Accelerometer() {
+      public void enable(int samplingPeriod) { sensor.enable(samplingPeriod); }
+      public double[] getValues() { return sensor.getValues(); }
+    };
+  }
+
+  @Override public Gyro getGyro(String name) {
+    final com.cyberbotics.webots.controller.Gyro sensor = robot.getGyro(name);
+    return new Gyro() {
+      public void enable(int samplingPeriod) { sensor.enable(samplingPeriod); }
+      public double[] getValues() { return sensor.getValues(); }
+    };
+  }
+
+  @Override public InertialUnit getInertialUnit(String name) {
+    final com.cyberbotics.webots.controller.InertialUnit sensor = robot.getInertialUnit(name);
+    return new InertialUnit() {
+      public void enable(int samplingPeriod) { sensor.enable(samplingPeriod); }
+      public double[] getRollPitchYaw() { return sensor.getRollPitchYaw(); }
+    };
+  }
+
+  @Override public DistanceSensor getDistanceSensor(String name) {
+    final com.cyberbotics.webots.controller.DistanceSensor sensor = robot.getDistanceSensor(name);
+    return new DistanceSensor() {
+      public void enable(int samplingPeriod) { sensor.enable(samplingPeriod); }
+      public double getValue() { return sensor.getValue(); }
+    };
+  }
+
+  @Override public LED getLED(String name) {
+    final com.cyberbotics.webots.controller.LED led = robot.getLED(name);
+    return new LED() {
+      public void set(int value) { led.set(value); }
+    };
+  }
+
+  @Override public TouchSensor getTouchSensor(String name) {
+    final com.cyberbotics.webots.controller.TouchSensor sensor = robot.getTouchSensor(name);
+    return new TouchSensor() {
+      public void enable(int samplingPeriod) { sensor.enable(samplingPeriod); }
+      public double getValue() { return sensor.getValue(); }
+    };
+  }
+
+  @Override public Emitter getEmitter(String name) {
+    final com.cyberbotics.webots.controller.Emitter emitter = robot.getEmitter(name);
+    return new Emitter() {
+      public int send(byte[] data) { return emitter.send(data); }
+    };
+  }
+
+  @Override public Receiver getReceiver(String name) {
+    final com.cyberbotics.webots.controller.Receiver receiver = robot.getReceiver(name);
+    return new Receiver() {
+      public void enable(int samplingPeriod) { receiver.enable(samplingPeriod); }
+      public int getQueueLength() { return receiver.getQueueLength(); }
+      public byte[] getData() { return receiver.getData(); }
+      public void nextPacket() { receiver.nextPacket(); }
+    };
+  }
+
+  @Override public GPS getGPS(String name) {
+    final com.cyberbotics.webots.controller.GPS gps = robot.getGPS(name);
+    return new GPS() {
+      public void enable(int samplingPeriod) { gps.enable(samplingPeriod); }
+      public double[] getValues() { return gps.getValues(); }
+    };
+  }
+
+  @Override public Motion getMotion(final String name) {
+    Motion motion = motions.get(name);
+    if (motion == null) {
+      final com.cyberbotics.webots.controller.Motion webotsMotion =
+        new com.cyberbotics.webots.controller.Motion(MotionLibrary.MOTIONS_DIR + name + ".motion");
+      if (! webotsMotion.isValid())
+        System.out.println("WebotsPlatform: cannot load motion: " + name);
+      motion = new Motion() {
+        public String getName() { return name; }
+        public boolean isValid() { return webotsMotion.isValid(); }
+        public void play() { webotsMotion.play(); }
+        public void stop() { webotsMotion.stop(); }
+        public boolean isOver() { return webotsMotion.isOver(); }
+        public int getTime() { return webotsMotion.getTime(); }
+        public void setTime(int time) { webotsMotion.setTime(time); }
+        public int getDuration() { return webotsMotion.getDuration(); }
+      };
+      motions.put(name, motion);
+    }
+    return motion;
+  }
+}